@@ -0,0 +1,108 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * BenchmarkFixtures
+ *
+ * The synthetic data the search benchmarks share: vocabularies of random
+ * words, question texts drawn from them with a skew so that a few words are
+ * very common (like real text), and the linear scan that searchQuestions
+ * used before it had an index, which the indexed searches are checked
+ * against. Everything comes from the caller's Random, so a fixed seed gives
+ * the same data on every run.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Random lower-case words, letters picked uniformly.
+     *
+     * @param random    the source of randomness.
+     * @param size      the number of words.
+     * @param minLength the shortest word.
+     * @param maxLength the longest word.
+     * @return the words, possibly with repeats.
+     */
+    static String[] vocabulary(Random random, int size, int minLength, int maxLength) {
+        return words(random, size, minLength, maxLength, false);
+    }
+
+    // Like vocabulary, but letters near 'a' are far more likely, so some trigrams are very common
+    static String[] skewedVocabulary(Random random, int size, int minLength, int maxLength) {
+        return words(random, size, minLength, maxLength, true);
+    }
+
+    private static String[] words(Random random, int size, int minLength, int maxLength, boolean skewLetters) {
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = minLength + random.nextInt(maxLength - minLength + 1);
+            for (int c = 0; c < length; c++) {
+                double skew = random.nextDouble();
+                word.append((char) ('a' + (int) ((skewLetters ? skew * skew : skew) * 26)));
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    /**
+     * One question text: words from the vocabulary separated by spaces and
+     * ending in '?'. Word {@code i} of the vocabulary is picked with a
+     * probability that falls faster the higher {@code skew} is; 1 picks every
+     * word equally often.
+     *
+     * @param random     the source of randomness.
+     * @param vocabulary the words to pick from.
+     * @param minWords   the fewest words.
+     * @param maxWords   the most words.
+     * @param skew       1 for uniform, 2 or 3 for text dominated by the first words.
+     * @return the text.
+     */
+    static String sentence(Random random, String[] vocabulary, int minWords, int maxWords, int skew) {
+        StringBuilder content = new StringBuilder();
+        int words = minWords + random.nextInt(maxWords - minWords + 1);
+        for (int w = 0; w < words; w++) {
+            double pick = Math.pow(random.nextDouble(), skew);
+            content.append(w == 0 ? "" : " ").append(vocabulary[(int) (pick * vocabulary.length)]);
+        }
+        return content.append('?').toString();
+    }
+
+    // Questions with ids 1 to size and texts from sentence()
+    static List<Question> corpus(Random random, String[] vocabulary, int size, int minWords, int maxWords,
+            int skew) {
+        List<Question> corpus = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            corpus.add(new Question(id, sentence(random, vocabulary, minWords, maxWords, skew)));
+        }
+        return corpus;
+    }
+
+    // How searchQuestions worked before it had an index
+    static List<Question> scan(Questions questions, String keyword) {
+        List<Question> result = new ArrayList<>();
+        String lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+        for (Question q : questions.getQuestionList()) {
+            if (q.getContent().toLowerCase(Locale.ROOT).contains(lowerKeyword)) {
+                result.add(q);
+            }
+        }
+        return result;
+    }
+
+    // Ids and contents, to compare results held in different Question objects
+    static List<String> describe(List<Question> questions) {
+        List<String> result = new ArrayList<>(questions.size());
+        for (Question q : questions) {
+            result.add(q.getId() + ":" + q.getContent());
+        }
+        return result;
+    }
+}
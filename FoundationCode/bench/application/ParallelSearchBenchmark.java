@@ -0,0 +1,101 @@
+package application;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ParallelSearchBenchmark
+ *
+ * Measures how Questions.searchQuestions scales with cores on a large
+ * synthetic corpus, using keywords that leave many questions to check: short
+ * fragments (no trigram, so every question is checked) and longer ones made
+ * of common letters. Each level of parallelism runs the search from inside a
+ * ForkJoinPool of that size, which the parallel stream then uses instead of
+ * the common pool. Every level must return exactly the sequential results.
+ * No database is needed.
+ *
+ * Usage: java application.ParallelSearchBenchmark [questions] [queries]
+ */
+public class ParallelSearchBenchmark {
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int cores = Runtime.getRuntime().availableProcessors();
+        Random random = new Random(23);
+
+        System.out.println("______________________________________");
+        System.out.println("\nParallel Search Benchmark (" + size + " questions, " + queryCount + " queries, "
+                + cores + " cores)");
+
+        // Words over a skewed alphabet, so some trigrams are very common
+        String[] vocabulary = BenchmarkFixtures.skewedVocabulary(random, 10_000, 2, 9);
+        Questions questions = new Questions();
+        // Every query is repeated; the cache would answer all but the first
+        questions.setSearchCacheSize(0);
+        for (Question q : BenchmarkFixtures.corpus(random, vocabulary, size, 8, 23, 1)) {
+            questions.addQuestion(q);
+        }
+
+        String[] keywords = new String[queryCount];
+        for (int i = 0; i < queryCount; i++) {
+            keywords[i] = i % 2 == 0 ? "" + (char) ('a' + random.nextInt(26)) + (char) ('a' + random.nextInt(26))
+                    : "" + (char) ('a' + random.nextInt(3)) + (char) ('a' + random.nextInt(3)) + 'a';
+        }
+
+        questions.setParallelThreshold(Integer.MAX_VALUE);
+        long expectedHits = 0;
+        for (String keyword : keywords) {
+            expectedHits += questions.searchQuestions(keyword).size();
+        }
+        double sequential = time(questions, keywords);
+        System.out.printf("%nSequential:        %10.1f ms/query (%d hits)%n", sequential, expectedHits);
+
+        questions.setParallelThreshold(Questions.DEFAULT_PARALLEL_THRESHOLD);
+        boolean same = true;
+        // 1, 2, 4, ... cores, and all of them
+        for (int parallelism = 1; parallelism <= cores; parallelism = parallelism == cores ? cores + 1
+                : Math.min(cores, parallelism * 2)) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                same &= pool.submit(() -> sameResults(questions, keywords)).get();
+                double elapsed = pool.submit(() -> time(questions, keywords)).get();
+                System.out.printf("Parallel, %2d cores: %9.1f ms/query (%.2fx)%n", parallelism, elapsed,
+                        sequential / elapsed);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        System.out.println(same ? "Parallel results identical to sequential: OK"
+                : "Parallel results differ: FAILED");
+    }
+
+    // Warms up, then returns the mean time per query in milliseconds
+    private static double time(Questions questions, String[] keywords) {
+        for (int round = 0; round < 2; round++) {
+            for (String keyword : keywords) {
+                questions.searchQuestions(keyword);
+            }
+        }
+        long start = System.nanoTime();
+        for (String keyword : keywords) {
+            questions.searchQuestions(keyword);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / keywords.length;
+    }
+
+    private static boolean sameResults(Questions questions, String[] keywords) {
+        int threshold = questions.getParallelThreshold();
+        for (String keyword : keywords) {
+            questions.setParallelThreshold(Integer.MAX_VALUE);
+            List<Question> expected = questions.searchQuestions(keyword);
+            questions.setParallelThreshold(threshold);
+            if (!expected.equals(questions.searchQuestions(keyword))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * QuestionStoreBenchmark
+ *
+ * Measures how much Java heap a synthetic corpus takes as a list of Question
+ * objects, as a QuestionStore on the heap, and as an off-heap QuestionStore,
+ * and checks that the stores give back the same ids and content. No database
+ * is needed. Run with a fixed heap (e.g. -Xmx2g) for stable numbers.
+ *
+ * Usage: java application.QuestionStoreBenchmark [questions]
+ */
+public class QuestionStoreBenchmark {
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.println("______________________________________");
+        System.out.println("\nQuestion Store Benchmark (" + size + " questions)");
+
+        long base = usedHeap();
+        List<Question> list = new ArrayList<>();
+        fill(size, (id, content) -> list.add(new Question(id, content)));
+        long listBytes = usedHeap() - base;
+        report("ArrayList<Question>", listBytes, size);
+
+        QuestionStore onHeap = new QuestionStore(false);
+        long before = usedHeap();
+        fill(size, onHeap::add);
+        onHeap.trimToSize();
+        long onHeapBytes = usedHeap() - before;
+        report("QuestionStore (heap)", onHeapBytes, size);
+
+        QuestionStore offHeap = new QuestionStore(true);
+        before = usedHeap();
+        fill(size, offHeap::add);
+        offHeap.trimToSize();
+        long offHeapBytes = usedHeap() - before;
+        report("QuestionStore (off-heap)", offHeapBytes, size);
+        System.out.printf("  plus %.1f MB of direct memory%n", offHeap.getDirectBytes() / 1048576.0);
+
+        boolean same = true;
+        for (int i = 0; i < size; i += 997) {
+            Question q = list.get(i);
+            same &= onHeap.getId(i) == q.getId() && onHeap.getContent(i).equals(q.getContent())
+                    && offHeap.getId(i) == q.getId() && offHeap.getContent(i).equals(q.getContent());
+        }
+        System.out.printf("%nHeap saved: %.1fx on heap, %.1fx off heap%n", (double) listBytes / onHeapBytes,
+                (double) listBytes / offHeapBytes);
+        System.out.println(same ? "Stores return the same questions: OK" : "Stores differ from the list: FAILED");
+    }
+
+    private interface Sink {
+        void add(int id, String content);
+    }
+
+    // Same seed every time, so each structure gets identical content
+    private static void fill(int size, Sink sink) {
+        Random random = new Random(7);
+        StringBuilder content = new StringBuilder();
+        for (int id = 1; id <= size; id++) {
+            content.setLength(0);
+            int words = 6 + random.nextInt(12);
+            for (int w = 0; w < words; w++) {
+                int length = 2 + random.nextInt(8);
+                for (int c = 0; c < length; c++) {
+                    content.append((char) ('a' + random.nextInt(26)));
+                }
+                content.append(w == words - 1 ? '?' : ' ');
+            }
+            sink.add(id, content.toString());
+        }
+    }
+
+    private static void report(String name, long bytes, int size) {
+        System.out.printf("%-26s %8.1f MB heap (%5.1f bytes/question)%n", name, bytes / 1048576.0,
+                (double) bytes / size);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,118 @@
+package application;
+
+import databasePart1.DatabaseConfig;
+import databasePart1.DatabaseHelper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * RedemptionBenchmark
+ *
+ * A concurrency stress test for invitation code and one-time password
+ * redemption. Many threads try to redeem every code at the same time; each
+ * code must be accepted exactly once. Runs against an in-memory database.
+ *
+ * Usage: java application.RedemptionBenchmark [threads] [codes]
+ */
+public class RedemptionBenchmark {
+
+    // Redeems one token, returning true if this call consumed it
+    private interface Redeemer {
+        boolean redeem(DatabaseHelper dbHelper, int index, String token) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int codes = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        DatabaseHelper dbHelper = new DatabaseHelper(DatabaseConfig.inMemory("redemption-benchmark"));
+        dbHelper.connectToDatabase();
+        try {
+            System.out.println("______________________________________");
+            System.out.println("\nRedemption Benchmark (" + threads + " threads)");
+
+            // Invitation codes are 4 random characters, so drop the odd duplicate
+            Set<String> invitationCodes = new LinkedHashSet<>();
+            while (invitationCodes.size() < codes) {
+                invitationCodes.add(dbHelper.generateInvitationCode());
+            }
+            boolean invitationsOk = race("Invitation codes", dbHelper, threads, new ArrayList<>(invitationCodes),
+                    (db, index, code) -> db.validateInvitationCode(code));
+
+            // One OTP per user; half of the attempts log in with it, half validate it directly
+            List<String> otps = new ArrayList<>();
+            for (int i = 0; i < codes; i++) {
+                dbHelper.register(new User("bench" + i, "password" + i, "Student"));
+                otps.add(dbHelper.generateOTPCode("bench" + i));
+            }
+            boolean otpsOk = race("One-time passwords", dbHelper, threads, otps, (db, index, otp) -> {
+                if ((index & 1) == 0) {
+                    return db.login(new User("bench" + index, otp, "Student"));
+                }
+                return db.validateOTP(otp);
+            });
+
+            System.out.println("____________________________________________________________________________");
+            System.out.println("\n" + (invitationsOk && otpsOk ? "PASSED" : "FAILED")
+                    + ": every code redeemed exactly once");
+        } finally {
+            dbHelper.closeConnection();
+        }
+    }
+
+    /**
+     * Has every thread try to redeem every token (each in its own shuffled order)
+     * and checks that exactly one attempt per token succeeded.
+     */
+    private static boolean race(String name, DatabaseHelper dbHelper, int threads, List<String> tokens,
+            Redeemer redeemer) throws InterruptedException {
+        AtomicIntegerArray successes = new AtomicIntegerArray(tokens.size());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                List<Integer> order = new ArrayList<>();
+                for (int i = 0; i < tokens.size(); i++) {
+                    order.add(i);
+                }
+                Collections.shuffle(order);
+                try {
+                    start.await();
+                    for (int i : order) {
+                        if (redeemer.redeem(dbHelper, i, tokens.get(i))) {
+                            successes.incrementAndGet(i);
+                        }
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - begin;
+
+        int exactlyOnce = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (successes.get(i) == 1) {
+                exactlyOnce++;
+            } else {
+                System.out.println("  " + tokens.get(i) + " redeemed " + successes.get(i) + " times");
+            }
+        }
+        long attempts = (long) threads * tokens.size();
+        System.out.printf("%n%s: %d attempts in %.1f ms (%.0f attempts/s), %d of %d redeemed exactly once%n", name,
+                attempts, elapsed / 1_000_000.0, attempts * 1_000_000_000.0 / elapsed, exactlyOnce, tokens.size());
+        return exactlyOnce == tokens.size();
+    }
+}
@@ -0,0 +1,149 @@
+package application;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * SearchAllocationBenchmark
+ *
+ * Measures time and heap allocation per substring query for the old
+ * toLowerCase(Locale.ROOT)-per-row scan and for the CaseInsensitiveMatcher paths: a
+ * matcher scan over the same strings, Questions.searchQuestions (trigram
+ * index) and QuestionStore.search (UTF-8 rows). Allocation is read from the
+ * JVM's per-thread allocation counter, so no profiler is needed. A few rows
+ * contain non-ASCII text to exercise the exact fallback; every path must
+ * find the same rows as the old scan.
+ *
+ * Usage: java application.SearchAllocationBenchmark [questions] [queries]
+ */
+public class SearchAllocationBenchmark {
+
+    private interface Search {
+        long run(String keyword);
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Random random = new Random(11);
+
+        System.out.println("______________________________________");
+        System.out.println("\nSearch Allocation Benchmark (" + size + " questions, " + queryCount + " queries)");
+
+        List<String> contents = corpus(random, size);
+        Questions questions = new Questions();
+        QuestionStore store = new QuestionStore();
+        for (int id = 1; id <= size; id++) {
+            Question q = new Question(id, contents.get(id - 1));
+            questions.addQuestion(q);
+            store.add(q);
+        }
+        store.trimToSize();
+
+        // Fragments of 2-6 characters in mixed case
+        String[] keywords = new String[queryCount];
+        for (int i = 0; i < queryCount; i++) {
+            String content = contents.get(random.nextInt(size));
+            int start = random.nextInt(content.length() - 6);
+            String fragment = content.substring(start, start + 2 + random.nextInt(5));
+            keywords[i] = random.nextBoolean() ? fragment.toUpperCase(Locale.ROOT) : fragment;
+        }
+        // Non-ASCII keywords take the toLowerCase(Locale.ROOT) path, so they are only checked, not timed
+        String[] checked = Arrays.copyOf(keywords, queryCount + 3);
+        checked[queryCount] = "kelvin";
+        checked[queryCount + 1] = "CAF\u00C9";
+        checked[queryCount + 2] = "\u0130st";
+
+        Search oldScan = keyword -> {
+            long hits = 0;
+            String lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+            for (String content : contents) {
+                if (content.toLowerCase(Locale.ROOT).contains(lowerKeyword)) {
+                    hits++;
+                }
+            }
+            return hits;
+        };
+        Search matcherScan = keyword -> {
+            long hits = 0;
+            CaseInsensitiveMatcher matcher = new CaseInsensitiveMatcher(keyword);
+            for (String content : contents) {
+                if (matcher.matches(content)) {
+                    hits++;
+                }
+            }
+            return hits;
+        };
+        Search trigram = keyword -> questions.searchQuestions(keyword).size();
+        Search columnar = keyword -> store.search(keyword).size();
+
+        boolean same = true;
+        for (String keyword : checked) {
+            long expected = oldScan.run(keyword);
+            same &= matcherScan.run(keyword) == expected && trigram.run(keyword) == expected
+                    && columnar.run(keyword) == expected;
+        }
+
+        System.out.printf("%n%-28s %12s %16s %14s%n", "", "us/query", "bytes/query", "bytes/row");
+        measure("toLowerCase(Locale.ROOT) scan", oldScan, keywords, size);
+        measure("CaseInsensitiveMatcher scan", matcherScan, keywords, size);
+        measure("searchQuestions (trigram)", trigram, keywords, size);
+        measure("QuestionStore.search", columnar, keywords, size);
+        System.out.println("\nbytes/query includes the result list for the last two.");
+        System.out.println(same ? "All paths find the same questions: OK" : "Results differ: FAILED");
+    }
+
+    private static void measure(String name, Search search, String[] keywords, int size) {
+        // Warm up so the JIT has compiled (and escape-analysed) the loop
+        for (int round = 0; round < 3; round++) {
+            for (String keyword : keywords) {
+                search.run(keyword);
+            }
+        }
+        long thread = Thread.currentThread().threadId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (String keyword : keywords) {
+            search.run(keyword);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        double perQuery = (double) allocated / keywords.length;
+        System.out.printf("%-28s %12.1f %16.0f %14.2f%n", name, elapsed / 1000.0 / keywords.length, perQuery,
+                perQuery / size);
+    }
+
+    private static List<String> corpus(Random random, int size) {
+        List<String> contents = new ArrayList<>(size);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            content.setLength(0);
+            int words = 8 + random.nextInt(16);
+            for (int w = 0; w < words; w++) {
+                int length = 2 + random.nextInt(8);
+                for (int c = 0; c < length; c++) {
+                    char letter = (char) ('a' + random.nextInt(26));
+                    content.append(random.nextInt(10) == 0 ? Character.toUpperCase(letter) : letter);
+                }
+                content.append(' ');
+            }
+            // About one row in a hundred has accented text, and a handful contain the Kelvin sign
+            // (\u212A) and dotted capital I (\u0130), which lower-case to ASCII letters
+            if (random.nextInt(100) == 0) {
+                content.append("Caf\u00E9 na\u00EFve ");
+            }
+            if (i % 10_000 == 0) {
+                content.append("\u212Aelvin \u0130stanbul ");
+            }
+            contents.add(content.append('?').toString());
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,348 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * SearchBenchmark
+ *
+ * Compares the search indexes with a linear scan on a synthetic corpus:
+ * word queries through Questions.searchKeywords, and substring queries
+ * through Questions.searchQuestions (trigram index), which must return
+ * exactly what the scan returns. BM25 ranking through Questions.rankQuestions
+ * is timed and checked against scoring and sorting every question, after a
+ * round of edits and deletes. No database is needed.
+ *
+ * Usage: java application.SearchBenchmark [questions] [queries]
+ */
+public class SearchBenchmark {
+
+    private static final int VOCABULARY = 20_000;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Random random = new Random(42);
+
+        System.out.println("______________________________________");
+        System.out.println("\nSearch Benchmark (" + size + " questions, " + queryCount + " queries)");
+
+        String[] vocabulary = BenchmarkFixtures.vocabulary(random, VOCABULARY, 3, 10);
+        // Word frequencies are skewed like real text: a few words are very common
+        List<Question> corpus = BenchmarkFixtures.corpus(random, vocabulary, size, 8, 27, 3);
+
+        long start = System.nanoTime();
+        Questions questions = new Questions();
+        for (Question q : corpus) {
+            questions.addQuestion(q);
+        }
+        System.out.printf("%nIndexed in %.1f ms%n", (System.nanoTime() - start) / 1_000_000.0);
+
+        // Queries of 1-3 words taken from real questions, so most have results
+        String[][] queries = new String[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            String[] words = InvertedIndex.tokenize(corpus.get(random.nextInt(size)).getContent());
+            int n = 1 + random.nextInt(Math.min(3, words.length));
+            queries[i] = new String[n];
+            for (int w = 0; w < n; w++) {
+                queries[i][w] = words[random.nextInt(words.length)];
+            }
+        }
+
+        // Warm up both paths before timing
+        for (int round = 0; round < 3; round++) {
+            runLinear(questions, queries, Math.min(queryCount, 50));
+            runIndexed(questions, queries, queryCount);
+        }
+
+        start = System.nanoTime();
+        long linearHits = runLinear(questions, queries, queryCount);
+        long linearNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long indexedHits = runIndexed(questions, queries, queryCount);
+        long indexedNanos = System.nanoTime() - start;
+
+        System.out.printf("Linear scan:   %10.1f us/query (%d hits)%n", linearNanos / 1000.0 / queryCount, linearHits);
+        System.out.printf("Word index:    %10.1f us/query (%d hits)%n", indexedNanos / 1000.0 / queryCount, indexedHits);
+        System.out.printf("Speedup:       %10.1fx%n", (double) linearNanos / indexedNanos);
+        // The scan also matches fragments inside longer words, so it can only find more
+        System.out.println(indexedHits <= linearHits ? "Index results are a subset of the scan: OK"
+                : "Index found more than the scan: FAILED");
+
+        compareSubstringSearch(questions, corpus, random, queryCount);
+        Corpus stats = compareRanking(questions, corpus, queries, random);
+        compareFuzzySearch(questions, stats, queries, random);
+    }
+
+    /**
+     * Edits and deletes some questions, then times top-10 ranking and checks
+     * that it returns the same questions, in the same order, as a full BM25
+     * scoring of the current list followed by a sort.
+     *
+     * @return the word statistics of the changed corpus.
+     */
+    private static Corpus compareRanking(Questions questions, List<Question> corpus, String[][] queries,
+            Random random) {
+        int changes = corpus.size() / 100;
+        for (int i = 0; i < changes; i++) {
+            Question q = corpus.get(random.nextInt(corpus.size()));
+            Question edited = new Question(q.getId(), q.getContent() + " " + queries[i % queries.length][0]);
+            questions.removeQuestion(q);
+            questions.addQuestion(edited);
+            corpus.set(corpus.indexOf(q), edited);
+        }
+        for (int i = 0; i < changes; i++) {
+            questions.removeQuestion(corpus.remove(random.nextInt(corpus.size())));
+        }
+
+        Corpus stats = new Corpus(corpus);
+        int mismatches = 0;
+        for (int i = 0; i < 50; i++) {
+            String query = String.join(" ", queries[i]);
+            if (!stats.rank(query, 10).equals(questions.rankQuestions(query, 10))) {
+                mismatches++;
+            }
+        }
+        for (int round = 0; round < 3; round++) {
+            for (String[] words : queries) {
+                questions.rankQuestions(String.join(" ", words), 10);
+            }
+        }
+        long[] nanos = new long[queries.length];
+        long total = 0;
+        for (int i = 0; i < queries.length; i++) {
+            long start = System.nanoTime();
+            questions.rankQuestions(String.join(" ", queries[i]), 10);
+            nanos[i] = System.nanoTime() - start;
+            total += nanos[i];
+        }
+        Arrays.sort(nanos);
+
+        System.out.printf("%nBM25 top 10:   %10.1f us/query (p99 %.1f us, after %d edits and %d deletes)%n",
+                total / 1000.0 / queries.length, nanos[nanos.length * 99 / 100] / 1000.0, changes, changes);
+        System.out.println(mismatches == 0 ? "Ranking identical to a full sort: OK"
+                : mismatches + " rankings differ from a full sort: FAILED");
+        return stats;
+    }
+
+    /**
+     * Misspells query words with one or two random edits, times fuzzy search
+     * and checks each correction against the edit distance to every word of
+     * the vocabulary.
+     */
+    private static void compareFuzzySearch(Questions questions, Corpus stats, String[][] queries, Random random) {
+        String[] typos = new String[queries.length];
+        for (int i = 0; i < queries.length; i++) {
+            String word = queries[i][0];
+            typos[i] = misspell(random, word.length() > 4 && random.nextBoolean() ? misspell(random, word) : word);
+        }
+
+        int mismatches = 0;
+        int corrected = 0;
+        long scanNanos = 0;
+        for (int i = 0; i < 100; i++) {
+            long start = System.nanoTime();
+            List<String> expected = stats.closest(typos[i]);
+            scanNanos += System.nanoTime() - start;
+            if (!expected.equals(questions.suggestWords(typos[i]))) {
+                mismatches++;
+            }
+            if (expected.contains(queries[i][0])) {
+                corrected++;
+            }
+        }
+        for (int round = 0; round < 3; round++) {
+            for (String typo : typos) {
+                questions.searchFuzzy(typo, 10);
+            }
+        }
+        long start = System.nanoTime();
+        long hits = 0;
+        for (String typo : typos) {
+            hits += questions.searchFuzzy(typo, 10).size();
+        }
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("%nVocabulary scan:%9.1f us/word (%d words)%n", scanNanos / 1000.0 / 100,
+                stats.documentFrequency.size());
+        System.out.printf("Fuzzy top 10:  %10.1f us/query (%d hits, %d of 100 typos corrected to the original)%n",
+                nanos / 1000.0 / typos.length, hits, corrected);
+        System.out.println(mismatches == 0 ? "Corrections identical to a full vocabulary scan: OK"
+                : mismatches + " corrections differ from a full vocabulary scan: FAILED");
+    }
+
+    // One random insertion, deletion, substitution or swap of neighbouring letters
+    private static String misspell(Random random, String word) {
+        StringBuilder typo = new StringBuilder(word);
+        int i = random.nextInt(word.length());
+        char letter = (char) ('a' + random.nextInt(26));
+        switch (random.nextInt(4)) {
+            case 0 -> typo.insert(i, letter);
+            case 1 -> typo.deleteCharAt(i);
+            case 2 -> typo.setCharAt(i, letter);
+            default -> {
+                int j = Math.min(i + 1, word.length() - 1);
+                typo.setCharAt(i, word.charAt(j));
+                typo.setCharAt(j, word.charAt(i));
+            }
+        }
+        return typo.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                d[i][j] = i == 0 ? j : j == 0 ? i
+                        : Math.min(Math.min(d[i - 1][j], d[i][j - 1]) + 1,
+                                d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1));
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    // Word counts of every question, to score them all from scratch with the same formula
+    private static final class Corpus {
+        private final List<Question> questions;
+        private final List<Map<String, Integer>> counts = new ArrayList<>();
+        private final int[] lengths;
+        private final Map<String, Integer> documentFrequency = new HashMap<>();
+        private final float averageLength;
+
+        Corpus(List<Question> questions) {
+            this.questions = questions;
+            this.lengths = new int[questions.size()];
+            long totalLength = 0;
+            for (int i = 0; i < questions.size(); i++) {
+                Map<String, Integer> count = new HashMap<>();
+                for (String word : questions.get(i).getContent().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+                    if (!word.isEmpty()) {
+                        count.merge(word, 1, Integer::sum);
+                        lengths[i]++;
+                    }
+                }
+                counts.add(count);
+                totalLength += lengths[i];
+                for (String word : count.keySet()) {
+                    documentFrequency.merge(word, 1, Integer::sum);
+                }
+            }
+            averageLength = (float) totalLength / questions.size();
+        }
+
+        // Scores every question and sorts them all
+        List<Question> rank(String query, int limit) {
+            Map<Question, Float> scores = new HashMap<>();
+            for (String term : InvertedIndex.tokenize(query)) {
+                int df = documentFrequency.getOrDefault(term, 0);
+                float idf = (float) Math.log(1 + (questions.size() - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < questions.size(); i++) {
+                    Integer tf = counts.get(i).get(term);
+                    if (tf != null) {
+                        float norm = Bm25Ranker.K1 * (1 - Bm25Ranker.B + Bm25Ranker.B * lengths[i] / averageLength);
+                        scores.merge(questions.get(i), idf * tf * (Bm25Ranker.K1 + 1) / (tf + norm), Float::sum);
+                    }
+                }
+            }
+            List<Question> ranked = new ArrayList<>(scores.keySet());
+            ranked.sort(Comparator.comparing((Question q) -> -scores.get(q)).thenComparingInt(Question::getId));
+            return ranked.subList(0, Math.min(limit, ranked.size()));
+        }
+
+        // The vocabulary words nearest to a word, comparing it with all of them
+        List<String> closest(String word) {
+            if (documentFrequency.containsKey(word)) {
+                return List.of(word);
+            }
+            int best = word.length() < 3 ? 0 : word.length() == 3 ? 1 : 2;
+            List<String> result = new ArrayList<>();
+            for (String candidate : documentFrequency.keySet()) {
+                int d = levenshtein(word, candidate);
+                if (d > 0 && d <= best) {
+                    if (d < best) {
+                        result.clear();
+                        best = d;
+                    }
+                    result.add(candidate);
+                }
+            }
+            result.sort(null);
+            return result;
+        }
+    }
+
+    // Linear AND search, one scan per word
+    private static long runLinear(Questions questions, String[][] queries, int count) {
+        long hits = 0;
+        for (int i = 0; i < count; i++) {
+            List<Question> matches = BenchmarkFixtures.scan(questions, queries[i][0]);
+            for (int w = 1; w < queries[i].length; w++) {
+                String word = queries[i][w];
+                matches.removeIf(q -> !q.getContent().toLowerCase(Locale.ROOT).contains(word));
+            }
+            hits += matches.size();
+        }
+        return hits;
+    }
+
+    /**
+     * Times substring search with the trigram index against the scan and checks
+     * that both return the same questions in the same order.
+     */
+    private static void compareSubstringSearch(Questions questions, List<Question> corpus, Random random,
+            int queryCount) {
+        // Fragments of 2-8 characters cut from real questions, in mixed case
+        String[] fragments = new String[queryCount];
+        for (int i = 0; i < queryCount; i++) {
+            String content = corpus.get(random.nextInt(corpus.size())).getContent();
+            int length = 2 + random.nextInt(7);
+            int start = random.nextInt(Math.max(1, content.length() - length));
+            String fragment = content.substring(start, Math.min(content.length(), start + length));
+            fragments[i] = random.nextBoolean() ? fragment.toUpperCase(Locale.ROOT) : fragment;
+        }
+
+        // The fragments are searched more than once; time the index, not the cache
+        questions.setSearchCacheSize(0);
+        int mismatches = 0;
+        for (String fragment : fragments) {
+            if (!BenchmarkFixtures.scan(questions, fragment).equals(questions.searchQuestions(fragment))) {
+                mismatches++;
+            }
+        }
+
+        long start = System.nanoTime();
+        long scanHits = 0;
+        for (String fragment : fragments) {
+            scanHits += BenchmarkFixtures.scan(questions, fragment).size();
+        }
+        long scanNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long indexedHits = 0;
+        for (String fragment : fragments) {
+            indexedHits += questions.searchQuestions(fragment).size();
+        }
+        long indexedNanos = System.nanoTime() - start;
+
+        System.out.printf("%nSubstring scan:%10.1f us/query (%d hits)%n", scanNanos / 1000.0 / queryCount, scanHits);
+        System.out.printf("Trigram index: %10.1f us/query (%d hits)%n", indexedNanos / 1000.0 / queryCount, indexedHits);
+        System.out.printf("Speedup:       %10.1fx%n", (double) scanNanos / indexedNanos);
+        System.out.println(mismatches == 0 ? "Trigram results identical to the scan: OK"
+                : mismatches + " queries differ from the scan: FAILED");
+    }
+
+    private static long runIndexed(Questions questions, String[][] queries, int count) {
+        long hits = 0;
+        for (int i = 0; i < count; i++) {
+            hits += questions.searchKeywords(String.join(" ", queries[i])).size();
+        }
+        return hits;
+    }
+}
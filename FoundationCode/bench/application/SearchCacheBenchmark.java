@@ -0,0 +1,123 @@
+package application;
+
+import databasePart1.DatabaseConfig;
+import databasePart1.DatabaseHelper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * SearchCacheBenchmark
+ *
+ * Replays a search-heavy workload against an in-memory database: a few dozen
+ * popular keywords searched over and over (most popular first), with
+ * Question.create, update and delete mixed in. Two loaded Questions lists
+ * follow the same writes, one without a search cache and one with the
+ * default cache, and every search must return the same questions from both.
+ * Reports the time per search of each, and the cache's hit rate and
+ * invalidations.
+ *
+ * Usage: java application.SearchCacheBenchmark [questions] [operations] [writes per 100 operations]
+ */
+public class SearchCacheBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int writePercent = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        Random random = new Random(25);
+
+        DatabaseHelper dbHelper = new DatabaseHelper(DatabaseConfig.inMemory("search-cache-benchmark"));
+        dbHelper.connectToDatabase();
+        try {
+            System.out.println("______________________________________");
+            System.out.println("\nSearch Cache Benchmark (" + size + " questions, " + operations + " operations, "
+                    + writePercent + "% writes)");
+
+            String[] vocabulary = BenchmarkFixtures.vocabulary(random, 5_000, 3, 9);
+            List<Question> rows = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                rows.add(new Question(0, BenchmarkFixtures.sentence(random, vocabulary, 6, 19, 2)));
+            }
+            Questions loader = new Questions();
+            loader.createAll(dbHelper, rows);
+
+            Questions uncached = new Questions();
+            uncached.setSearchCacheSize(0);
+            uncached.loadAllQuestions(dbHelper);
+            Questions cached = new Questions();
+            cached.loadAllQuestions(dbHelper);
+
+            // Popular keywords: single words and two-word phrases, in mixed case
+            String[] keywords = new String[40];
+            for (int i = 0; i < keywords.length; i++) {
+                String word = vocabulary[random.nextInt(vocabulary.length)];
+                keywords[i] = i % 3 == 0 ? word + " " + vocabulary[random.nextInt(vocabulary.length)]
+                        : i % 3 == 1 ? word.toUpperCase(Locale.ROOT) : word;
+            }
+
+            List<Question> live = new ArrayList<>(rows);
+            long uncachedNanos = 0;
+            long cachedNanos = 0;
+            int searches = 0;
+            int writes = 0;
+            int mismatches = 0;
+            for (int op = 0; op < operations; op++) {
+                if (random.nextInt(100) < writePercent) {
+                    write(dbHelper, random, vocabulary, keywords, live);
+                    writes++;
+                    continue;
+                }
+                double skew = random.nextDouble();
+                String keyword = keywords[(int) (skew * skew * skew * keywords.length)];
+                long start = System.nanoTime();
+                List<Question> expected = uncached.searchQuestions(keyword);
+                long middle = System.nanoTime();
+                List<Question> actual = cached.searchQuestions(keyword);
+                cachedNanos += System.nanoTime() - middle;
+                uncachedNanos += middle - start;
+                searches++;
+                if (!BenchmarkFixtures.describe(expected).equals(BenchmarkFixtures.describe(actual))) {
+                    mismatches++;
+                }
+            }
+
+            SearchCache cache = cached.getSearchCache();
+            System.out.printf("%n%d searches, %d writes%n", searches, writes);
+            System.out.printf("No cache:      %10.1f us/search%n", uncachedNanos / 1000.0 / searches);
+            System.out.printf("Search cache:  %10.1f us/search%n", cachedNanos / 1000.0 / searches);
+            System.out.printf("Speedup:       %10.1fx%n", (double) uncachedNanos / cachedNanos);
+            System.out.printf("Hit rate:      %10.1f%% (%d invalidations, %d evictions)%n", cache.getHitRate() * 100,
+                    cache.getInvalidations(), cache.getEvictions());
+            System.out.println(cache);
+            System.out.println(mismatches == 0 ? "Cached results identical to uncached: OK"
+                    : mismatches + " searches differ: FAILED");
+        } finally {
+            dbHelper.closeConnection();
+        }
+    }
+
+    // Creates, updates or deletes one question; half of the new contents mention a popular keyword
+    private static void write(DatabaseHelper dbHelper, Random random, String[] vocabulary, String[] keywords,
+            List<Question> live) throws Exception {
+        String content = BenchmarkFixtures.sentence(random, vocabulary, 6, 19, 2);
+        if (random.nextBoolean()) {
+            content += " " + keywords[random.nextInt(keywords.length)];
+        }
+        int kind = random.nextInt(3);
+        if (kind == 0 || live.isEmpty()) {
+            Question q = new Question(0, content);
+            q.create(dbHelper);
+            live.add(q);
+        } else if (kind == 1) {
+            Question existing = live.get(random.nextInt(live.size()));
+            // A separate copy, as the UI would read it
+            new Question(existing.getId(), existing.getContent()).update(dbHelper, content);
+            existing.setContent(content);
+        } else {
+            Question existing = live.remove(random.nextInt(live.size()));
+            existing.delete(dbHelper);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * TypeAheadBenchmark
+ *
+ * Replays typing, one character at a time, against a synthetic corpus and
+ * measures what each keystroke costs the search-as-you-type path: word
+ * completions from the vocabulary trie (which must fit in a 16 ms frame), and
+ * Questions.searchQuestions, which narrows the previous matches while the
+ * keyword grows. The same keystrokes replayed backwards (longest first) can
+ * never be narrowed, which gives the cost of a full search for comparison.
+ * Every narrowed result must equal a linear scan. No database or JavaFX
+ * toolkit is needed.
+ *
+ * Usage: java application.TypeAheadBenchmark [questions] [phrases]
+ */
+public class TypeAheadBenchmark {
+
+    private static final double FRAME_MICROS = 16_667;
+
+    private interface Keystroke {
+        List<?> run(String typed);
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int phraseCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Random random = new Random(5);
+
+        System.out.println("______________________________________");
+        System.out.println("\nType-Ahead Benchmark (" + size + " questions, " + phraseCount + " typed phrases)");
+
+        String[] vocabulary = BenchmarkFixtures.vocabulary(random, 20_000, 3, 10);
+        Questions questions = new Questions();
+        for (Question q : BenchmarkFixtures.corpus(random, vocabulary, size, 8, 27, 3)) {
+            questions.addQuestion(q);
+        }
+        // Each keystroke is replayed several times; measure the search, not the cache
+        questions.setSearchCacheSize(0);
+
+        // Phrases of one or two words, typed from the first letter on
+        String[] phrases = new String[phraseCount];
+        for (int i = 0; i < phraseCount; i++) {
+            String[] words = InvertedIndex.tokenize(questions.getQuestionList().get(random.nextInt(size)).getContent());
+            phrases[i] = random.nextBoolean() || words.length < 2 ? words[0] : words[0] + " " + words[1];
+        }
+
+        int mismatches = 0;
+        for (String phrase : phrases) {
+            questions.searchQuestions("");
+            for (int end = 1; end <= phrase.length(); end++) {
+                String typed = phrase.substring(0, end);
+                if (!questions.searchQuestions(typed).equals(BenchmarkFixtures.scan(questions, typed))) {
+                    mismatches++;
+                }
+            }
+        }
+
+        // Warm up, then time each path over the same keystrokes
+        for (int round = 0; round < 2; round++) {
+            replay(questions, phrases, true, typed -> complete(questions, typed));
+            replay(questions, phrases, true, questions::searchQuestions);
+            replay(questions, phrases, false, questions::searchQuestions);
+        }
+        long[] complete = replay(questions, phrases, true, typed -> complete(questions, typed));
+        long[] narrowed = replay(questions, phrases, true, questions::searchQuestions);
+        long[] full = replay(questions, phrases, false, questions::searchQuestions);
+
+        System.out.printf("%n%-28s %12s %12s%n", "", "mean us", "p99 us");
+        report("Completions", complete);
+        report("Full search per keystroke", full);
+        report("Narrowed search (typing)", narrowed);
+        System.out.printf("%nCompletions within one frame: %s%n",
+                complete[complete.length * 99 / 100] / 1000.0 < FRAME_MICROS ? "OK" : "FAILED");
+        System.out.println(mismatches == 0 ? "Narrowed results identical to a scan: OK"
+                : mismatches + " keystrokes differ from a scan: FAILED");
+    }
+
+    /**
+     * Runs one action per keystroke of every phrase, forwards (as typed) or
+     * backwards (longest first). Each phrase starts from an empty search.
+     *
+     * @return the time of each keystroke in nanoseconds, sorted.
+     */
+    private static long[] replay(Questions questions, String[] phrases, boolean forwards, Keystroke action) {
+        List<Long> nanos = new ArrayList<>();
+        for (String phrase : phrases) {
+            questions.searchQuestions("");
+            for (int i = 1; i <= phrase.length(); i++) {
+                String typed = phrase.substring(0, forwards ? i : phrase.length() + 1 - i);
+                long start = System.nanoTime();
+                action.run(typed);
+                nanos.add(System.nanoTime() - start);
+            }
+        }
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // What TypeAhead asks for: completions of the word being typed, none right after a space
+    private static List<String> complete(Questions questions, String typed) {
+        String prefix = typed.substring(typed.lastIndexOf(' ') + 1);
+        return prefix.isEmpty() ? List.of() : questions.completeWord(prefix, TypeAhead.MAX_COMPLETIONS);
+    }
+
+    private static void report(String name, long[] nanos) {
+        double total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        System.out.printf("%-28s %12.1f %12.1f%n", name, total / nanos.length / 1000.0,
+                nanos[nanos.length * 99 / 100] / 1000.0);
+    }
+}
@@ -1,6 +1,7 @@
 package application;
 
 import databasePart1.DatabaseHelper;
+import databasePart1.NamedQuery;
 import java.sql.*;
 
 /**
@@ -62,6 +63,11 @@ public class Answer {
         return id;
     }
 
+    // Set by the bulk insert once the database has generated the id
+    void assignId(int id) {
+        this.id = id;
+    }
+
     public int getQuestionId() {
         return questionId;
     }
@@ -94,36 +100,49 @@ public class Answer {
      * @throws SQLException if an error occurs while inserting the answer.
      */
     public void create(DatabaseHelper dbHelper) throws SQLException {
-        String sql = "INSERT INTO Answers (questionId, content) VALUES (?, ?)";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, this.questionId);
-            pstmt.setString(2, this.content);
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating answer failed, no rows affected.");
-            }
-            // Retrieve the auto-generated key (id)
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    this.id = generatedKeys.getInt(1);
-                } else {
-                    throw new SQLException("Creating answer failed, no ID obtained.");
+        // A transaction even on its own, so the row's version is stamped as it commits
+        dbHelper.inTransaction(db -> {
+            try (Connection connection = db.getConnection();
+                 PreparedStatement pstmt = NamedQuery.INSERT_ANSWER.prepare(connection)) {
+                pstmt.setInt(1, this.questionId);
+                pstmt.setString(2, this.content);
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new SQLException("Creating answer failed, no rows affected.");
+                }
+                // Retrieve the auto-generated key (id)
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        this.id = generatedKeys.getInt(1);
+                    } else {
+                        throw new SQLException("Creating answer failed, no ID obtained.");
+                    }
                 }
             }
-        }
+            db.stampAtCommit(NamedQuery.STAMP_ANSWERS, this.id);
+            return null;
+        });
+        dbHelper.afterCommit(() -> dbHelper.answerEvents().fireCreated(this));
     }
 
     /**
      * Reads an Answer from the database by its ID.
      *
+     * Repeated reads of the same answer are served from
+     * {@link DatabaseHelper#answerCache()}; the caller always gets its own copy.
+     *
      * @param dbHelper The DatabaseHelper instance providing the database connection.
      * @param answerId The ID of the answer to read.
      * @return An Answer object if found; otherwise, null.
      * @throws SQLException if an error occurs while querying the database.
      */
     public static Answer read(DatabaseHelper dbHelper, int answerId) throws SQLException {
-        String sql = "SELECT id, questionId, content FROM Answers WHERE id = ?";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql)) {
+        return dbHelper.answerCache().read(answerId, dbHelper, db -> readFromDatabase(db, answerId));
+    }
+
+    private static Answer readFromDatabase(DatabaseHelper dbHelper, int answerId) throws SQLException {
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement pstmt = NamedQuery.READ_ANSWER.prepare(connection)) {
             pstmt.setInt(1, answerId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
@@ -149,16 +168,24 @@ public class Answer {
         if (!isValidContent(newContent)) {
             throw new IllegalArgumentException("New answer content cannot be empty.");
         }
-        String sql = "UPDATE Answers SET content = ? WHERE id = ?";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, newContent);
-            pstmt.setInt(2, this.id);
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Updating answer failed, no rows affected.");
+        dbHelper.inTransaction(db -> {
+            try (Connection connection = db.getConnection();
+                 PreparedStatement pstmt = NamedQuery.UPDATE_ANSWER.prepare(connection)) {
+                pstmt.setString(1, newContent);
+                pstmt.setInt(2, this.id);
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new SQLException("Updating answer failed, no rows affected.");
+                }
             }
+            db.stampAtCommit(NamedQuery.STAMP_ANSWERS, this.id);
+            return null;
+        });
+        // Inside a transaction the object keeps its old content until the commit
+        dbHelper.afterCommit(() -> {
             this.content = newContent;
-        }
+            dbHelper.answerEvents().fireUpdated(this);
+        });
     }
 
     /**
@@ -168,14 +195,24 @@ public class Answer {
      * @throws SQLException if an error occurs during deletion.
      */
     public void delete(DatabaseHelper dbHelper) throws SQLException {
-        String sql = "DELETE FROM Answers WHERE id = ?";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, this.id);
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Deleting answer failed, no rows affected.");
+        // The tombstone is written in the same transaction so other clients' refresh() sees the delete
+        dbHelper.inTransaction(db -> {
+            try (Connection connection = db.getConnection();
+                 PreparedStatement pstmt = NamedQuery.DELETE_ANSWER.prepare(connection);
+                 PreparedStatement tombstone = NamedQuery.RECORD_DELETION.prepare(connection)) {
+                pstmt.setInt(1, this.id);
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new SQLException("Deleting answer failed, no rows affected.");
+                }
+                tombstone.setString(1, "Answers");
+                tombstone.setInt(2, this.id);
+                tombstone.executeUpdate();
             }
-        }
+            db.stampAtCommit(NamedQuery.STAMP_ANSWER_DELETIONS, this.id);
+            return null;
+        });
+        dbHelper.afterCommit(() -> dbHelper.answerEvents().fireDeleted(this));
     }
 
     /**
@@ -1,5 +1,6 @@
 package application;
 
+import databasePart1.AsyncDatabaseHelper;
 import databasePart1.DatabaseHelper;
 import javafx.application.Application;
 import javafx.geometry.Insets;
@@ -44,7 +45,9 @@ public class AnswerApp extends Application {
         TextArea outputArea = new TextArea();
         outputArea.setEditable(false);
         
-        // Set up actions for each button
+        // Set up actions for each button.
+        // Database calls run in the background and report back on the UI thread.
+        AsyncDatabaseHelper async = dbHelper.async();
         
         // Create Answer
         createButton.setOnAction(e -> {
@@ -52,9 +55,15 @@ public class AnswerApp extends Application {
                 // Parse questionId from text field
                 int questionId = Integer.parseInt(questionIdField.getText().trim());
                 String content = contentField.getText();
-                currentAnswer = new Answer(questionId, content);
-                currentAnswer.create(dbHelper);
-                outputArea.appendText("Created: " + currentAnswer + "\n");
+                Answer answer = new Answer(questionId, content);
+                async.createAnswer(answer).whenComplete((created, ex) -> {
+                    if (ex != null) {
+                        outputArea.appendText("Error creating answer: " + AsyncDatabaseHelper.rootCause(ex).getMessage() + "\n");
+                    } else {
+                        currentAnswer = created;
+                        outputArea.appendText("Created: " + currentAnswer + "\n");
+                    }
+                });
             } catch (NumberFormatException nfe) {
                 outputArea.appendText("Invalid Question ID. Please enter a valid integer.\n");
             } catch (Exception ex) {
@@ -65,16 +74,15 @@ public class AnswerApp extends Application {
         // Read Answer
         readButton.setOnAction(e -> {
             if (currentAnswer != null) {
-                try {
-                    Answer readAnswer = Answer.read(dbHelper, currentAnswer.getId());
-                    if (readAnswer != null) {
+                async.readAnswer(currentAnswer.getId()).whenComplete((readAnswer, ex) -> {
+                    if (ex != null) {
+                        outputArea.appendText("Error reading answer: " + AsyncDatabaseHelper.rootCause(ex).getMessage() + "\n");
+                    } else if (readAnswer != null) {
                         outputArea.appendText("Read: " + readAnswer + "\n");
                     } else {
                         outputArea.appendText("Answer not found.\n");
                     }
-                } catch (SQLException ex) {
-                    outputArea.appendText("Error reading answer: " + ex.getMessage() + "\n");
-                }
+                });
             } else {
                 outputArea.appendText("No answer created yet.\n");
             }
@@ -83,13 +91,14 @@ public class AnswerApp extends Application {
         // Update Answer
         updateButton.setOnAction(e -> {
             if (currentAnswer != null) {
-                try {
-                    String newContent = contentField.getText();
-                    currentAnswer.update(dbHelper, newContent);
-                    outputArea.appendText("Updated: " + currentAnswer + "\n");
-                } catch (Exception ex) {
-                    outputArea.appendText("Error updating answer: " + ex.getMessage() + "\n");
-                }
+                String newContent = contentField.getText();
+                async.updateAnswer(currentAnswer, newContent).whenComplete((updated, ex) -> {
+                    if (ex != null) {
+                        outputArea.appendText("Error updating answer: " + AsyncDatabaseHelper.rootCause(ex).getMessage() + "\n");
+                    } else {
+                        outputArea.appendText("Updated: " + updated + "\n");
+                    }
+                });
             } else {
                 outputArea.appendText("No answer created to update.\n");
             }
@@ -98,13 +107,17 @@ public class AnswerApp extends Application {
         // Delete Answer
         deleteButton.setOnAction(e -> {
             if (currentAnswer != null) {
-                try {
-                    currentAnswer.delete(dbHelper);
-                    outputArea.appendText("Deleted answer with id: " + currentAnswer.getId() + "\n");
-                    currentAnswer = null;
-                } catch (SQLException ex) {
-                    outputArea.appendText("Error deleting answer: " + ex.getMessage() + "\n");
-                }
+                Answer toDelete = currentAnswer;
+                async.deleteAnswer(toDelete).whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        outputArea.appendText("Error deleting answer: " + AsyncDatabaseHelper.rootCause(ex).getMessage() + "\n");
+                    } else {
+                        outputArea.appendText("Deleted answer with id: " + toDelete.getId() + "\n");
+                        if (currentAnswer == toDelete) {
+                            currentAnswer = null;
+                        }
+                    }
+                });
             } else {
                 outputArea.appendText("No answer created to delete.\n");
             }
@@ -1,9 +1,21 @@
 package application;
 
+import databasePart1.BatchResult;
 import databasePart1.DatabaseHelper;
+import databasePart1.EntityListener;
+import databasePart1.NamedQuery;
+import databasePart1.SearchBackend;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * The Answers class manages a collection of Answer objects.
@@ -12,9 +24,75 @@ import java.util.List;
  */
 public class Answers {
 
+    // Rows per batch and transaction used by createAll
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Rows per fetch used by stream
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     // List to hold all Answer objects
     private List<Answer> answerList;
 
+    // Most rows a DATABASE search returns
+    public static final int DATABASE_SEARCH_LIMIT = 100;
+
+    // Where search() runs; LOCAL uses the word index below
+    private SearchBackend searchBackend = SearchBackend.LOCAL;
+
+    // Word index over the answers in the local list
+    private final InvertedIndex<Answer> index = new InvertedIndex<>(Answer::getId, Answer::getContent);
+
+    // Trigram index behind searchAnswers, kept in list order
+    private final TrigramIndex<Answer> substringIndex = new TrigramIndex<>(Answer::getContent);
+
+    // Row version the list is current to, for refresh(); -1 unless everything was loaded
+    private long syncVersion = -1;
+
+    // Once everything is loaded, keeps the list and indexes in step with create/update/delete. It runs
+    // on whichever thread made the write (a virtual thread for AsyncDatabaseHelper calls), so it holds
+    // the same lock as the readers, and readers only ever get copies of the list
+    private final EntityListener<Answer> databaseListener = new EntityListener<Answer>() {
+        @Override
+        public void created(Answer a) {
+            synchronized (Answers.this) {
+                // The trigram index holds the same objects as the list; asking it keeps createAll linear
+                if (!substringIndex.contains(a)) {
+                    answerList.add(a);
+                    substringIndex.add(a);
+                }
+                index.add(a);
+            }
+        }
+
+        @Override
+        public void updated(Answer a) {
+            synchronized (Answers.this) {
+                // The updated object may be a copy read separately; keep the list pointing at it
+                for (int i = 0; i < answerList.size(); i++) {
+                    if (answerList.get(i).getId() == a.getId()) {
+                        substringIndex.replace(answerList.get(i), a);
+                        answerList.set(i, a);
+                        index.add(a);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void deleted(Answer a) {
+            synchronized (Answers.this) {
+                for (Iterator<Answer> it = answerList.iterator(); it.hasNext();) {
+                    Answer existing = it.next();
+                    if (existing.getId() == a.getId()) {
+                        it.remove();
+                        substringIndex.remove(existing);
+                    }
+                }
+                index.remove(a);
+            }
+        }
+    };
+
     /**
      * Constructs an empty Answers container.
      */
@@ -23,26 +101,331 @@ public class Answers {
     }
 
     /**
-     * Loads all answers from the database into the local list.
+     * Loads all answers from the database into the local list and indexes them.
+     * From then on, answers created, updated or deleted through the same
+     * DatabaseHelper are reflected in the list and the index automatically.
+     * Changes made by other clients are picked up with {@link #refresh(DatabaseHelper)}.
      *
      * @param dbHelper the DatabaseHelper instance providing the database connection.
      * @throws SQLException if an error occurs during database access.
      */
     public void loadAllAnswers(DatabaseHelper dbHelper) throws SQLException {
-        String sql = "SELECT id, questionId, content FROM Answers";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            // Clear the current list before loading new data
-            answerList.clear();
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                int questionId = rs.getInt("questionId");
-                String content = rs.getString("content");
-                // Create a new Answer object using the data from the database
-                Answer answer = new Answer(id, questionId, content);
-                answerList.add(answer);
+        applyChanges(dbHelper, readAll(dbHelper));
+    }
+
+    // Every row, plus the version they are current to
+    private static ChangeSet<Answer> readAll(DatabaseHelper dbHelper) throws SQLException {
+        Map<Integer, Answer> rows = new LinkedHashMap<>();
+        long version;
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement versionQuery = NamedQuery.ANSWERS_SYNC_VERSION.prepare(connection);
+             PreparedStatement pstmt = NamedQuery.LOAD_ALL_ANSWERS.prepare(connection)) {
+            // Read before the rows: anything changed in between is simply read again by refresh()
+            try (ResultSet rs = versionQuery.executeQuery()) {
+                rs.next();
+                version = rs.getLong(1);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.put(rs.getInt("id"), new Answer(rs.getInt("id"), rs.getInt("questionId"), rs.getString("content")));
+                }
+            }
+        }
+        return new ChangeSet<>(-1, version, rows, Set.of(), true);
+    }
+
+    /**
+     * Brings a list filled by {@link #loadAllAnswers(DatabaseHelper)} up to date
+     * by reading only the answers inserted, updated or deleted since the last
+     * load or refresh, including changes made by other clients, and patching
+     * the list and indexes in place. The database work depends on how much
+     * changed, not on the size of the table. If the list was not loaded in
+     * full (or not at all), this does a full load instead.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @return the number of answers added, replaced or removed.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public int refresh(DatabaseHelper dbHelper) throws SQLException {
+        return applyChanges(dbHelper, readChanges(dbHelper));
+    }
+
+    /**
+     * The reading half of {@link #refresh(DatabaseHelper)}: queries what changed
+     * since the last load or refresh without touching the list, so it can run
+     * on a background thread. Pass the result to
+     * {@link #applyChanges(DatabaseHelper, ChangeSet)} on the thread that owns the list.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @return the changes, or every row if the list was not loaded in full.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public ChangeSet<Answer> readChanges(DatabaseHelper dbHelper) throws SQLException {
+        long since;
+        synchronized (this) {
+            since = syncVersion;
+        }
+        if (since < 0) {
+            return readAll(dbHelper);
+        }
+        Map<Integer, Answer> changed = new LinkedHashMap<>();
+        Set<Integer> deleted = new HashSet<>();
+        // Both reads see one snapshot, so nothing can slip in between them. Versions are
+        // stamped as a write commits (DatabaseHelper.stampAtCommit), so a write still open
+        // during this read ends up above the newest version seen here and comes next time.
+        long newest = dbHelper.inTransaction(Connection.TRANSACTION_REPEATABLE_READ, db -> {
+            changed.clear();
+            deleted.clear();
+            long version = since;
+            try (Connection connection = db.getConnection();
+                 PreparedStatement changes = NamedQuery.ANSWERS_CHANGED_SINCE.prepare(connection);
+                 PreparedStatement deletions = NamedQuery.DELETED_SINCE.prepare(connection)) {
+                changes.setLong(1, since);
+                try (ResultSet rs = changes.executeQuery()) {
+                    while (rs.next()) {
+                        changed.put(rs.getInt("id"), new Answer(rs.getInt("id"), rs.getInt("questionId"), rs.getString("content")));
+                        version = Math.max(version, rs.getLong("row_version"));
+                    }
+                }
+                deletions.setString(1, "Answers");
+                deletions.setLong(2, since);
+                try (ResultSet rs = deletions.executeQuery()) {
+                    while (rs.next()) {
+                        deleted.add(rs.getInt("id"));
+                        version = Math.max(version, rs.getLong("row_version"));
+                    }
+                }
+            }
+            return version;
+        });
+        // Changes by other clients never passed through this helper's cache invalidation
+        for (int id : changed.keySet()) {
+            dbHelper.answerCache().invalidate(id);
+        }
+        for (int id : deleted) {
+            dbHelper.answerCache().invalidate(id);
+        }
+        return new ChangeSet<>(since, newest, changed, deleted, false);
+    }
+
+    /**
+     * The patching half of {@link #refresh(DatabaseHelper)}. A full change set
+     * replaces the list (and starts following the database's events); otherwise
+     * changed answers are replaced in place, deleted ones dropped and new ones
+     * appended. Changes read before another load or refresh finished are
+     * ignored, since that one's result stands.
+     *
+     * @param dbHelper the helper the changes were read from.
+     * @param changes  the result of {@link #readChanges(DatabaseHelper)}.
+     * @return the number of answers added, replaced or removed (for a full load, the size of the list).
+     */
+    public synchronized int applyChanges(DatabaseHelper dbHelper, ChangeSet<Answer> changes) {
+        if (changes.isFull()) {
+            answerList = new ArrayList<>(changes.getRows());
+            syncVersion = changes.getVersion();
+            index.rebuild(answerList);
+            substringIndex.rebuild(answerList);
+            dbHelper.answerEvents().addListener(databaseListener);
+            return answerList.size();
+        }
+        if (syncVersion != changes.getSince()) {
+            return 0;
+        }
+        syncVersion = changes.getVersion();
+        return patch(new LinkedHashMap<>(changes.getChanged()), changes.getDeleted());
+    }
+
+    // Replaces changed answers in place, drops deleted ones and appends new ones
+    private int patch(Map<Integer, Answer> changed, Set<Integer> deleted) {
+        if (changed.isEmpty() && deleted.isEmpty()) {
+            return 0;
+        }
+        int patched = 0;
+        for (int i = 0; i < answerList.size(); i++) {
+            Answer existing = answerList.get(i);
+            Answer fresh = changed.remove(existing.getId());
+            if (deleted.contains(existing.getId())) {
+                index.remove(existing);
+                substringIndex.remove(existing);
+                patched++;
+            } else if (fresh != null) {
+                substringIndex.replace(existing, fresh);
+                answerList.set(i, fresh);
+                index.add(fresh);
+                patched++;
+            }
+        }
+        if (!deleted.isEmpty()) {
+            answerList.removeIf(a -> deleted.contains(a.getId()));
+        }
+        // What is left was not in the list yet
+        for (Answer a : changed.values()) {
+            answerList.add(a);
+            index.add(a);
+            substringIndex.add(a);
+            patched++;
+        }
+        return patched;
+    }
+
+    /**
+     * Streams every answer in the database without loading them into memory or
+     * touching the local list, e.g. for exports or reindexing. The stream keeps a
+     * database connection open, so close it:
+     *
+     * <pre>
+     * try (Stream&lt;Answer&gt; all = answers.stream(dbHelper)) { ... }
+     * </pre>
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @return the answers in id order.
+     * @throws SQLException if the query cannot be started.
+     */
+    public Stream<Answer> stream(DatabaseHelper dbHelper) throws SQLException {
+        return stream(dbHelper, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Same as {@link #stream(DatabaseHelper)} with an explicit JDBC fetch size.
+     */
+    public Stream<Answer> stream(DatabaseHelper dbHelper, int fetchSize) throws SQLException {
+        return dbHelper.stream(NamedQuery.STREAM_ANSWERS, fetchSize, rs -> new Answer(rs.getInt("id"), rs.getInt("questionId"), rs.getString("content")));
+    }
+
+    /**
+     * Loads one page of answers, ordered by id, into the local list (replacing
+     * what was there). Pass 0 for the first page and {@link Page#getLastId()}
+     * for each following one. Only {@code pageSize} rows are read, so the cost
+     * does not grow with the size of the table.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param afterId  only answers with a larger id are returned.
+     * @param pageSize the maximum number of answers to load.
+     * @return the page, with the cursor for the next page and a total-count estimate.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public Page<Answer> loadPage(DatabaseHelper dbHelper, int afterId, int pageSize) throws SQLException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        List<Answer> page = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        int lastId = afterId;
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement pstmt = NamedQuery.LOAD_ANSWER_PAGE.prepare(connection)) {
+            pstmt.setInt(1, afterId);
+            // One extra row tells us whether there is a next page
+            pstmt.setInt(2, pageSize + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (page.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    Answer row = new Answer(rs.getInt("id"), rs.getInt("questionId"), rs.getString("content"));
+                    page.add(row);
+                    lastId = row.getId();
+                }
+            }
+        }
+        // A page is a snapshot; it does not follow later changes
+        dbHelper.answerEvents().removeListener(databaseListener);
+        synchronized (this) {
+            answerList = page;
+            syncVersion = -1;
+            index.rebuild(page);
+            substringIndex.rebuild(page);
+        }
+        return new Page<>(page, afterId, lastId, hasMore, dbHelper.estimateRowCount("Answers"));
+    }
+
+    /**
+     * Reads the answers to one question straight from the database, through the
+     * index on questionId, without loading or touching the local list.
+     *
+     * @param dbHelper   the DatabaseHelper instance providing the database connection.
+     * @param questionId the question whose answers to read.
+     * @return the question's answers, ordered by id; empty if it has none.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public static List<Answer> loadAnswersFor(DatabaseHelper dbHelper, int questionId) throws SQLException {
+        List<Answer> result = new ArrayList<>();
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement pstmt = NamedQuery.LOAD_ANSWERS_FOR_QUESTION.prepare(connection)) {
+            pstmt.setInt(1, questionId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new Answer(rs.getInt("id"), rs.getInt("questionId"), rs.getString("content")));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the answers to several questions with a single query, e.g. for a
+     * page of questions shown with their answers, instead of one query per
+     * question.
+     *
+     * @param dbHelper    the DatabaseHelper instance providing the database connection.
+     * @param questionIds the questions whose answers to read.
+     * @return every requested question id, in the order given, mapped to its answers
+     *         ordered by id (an empty list if it has none).
+     * @throws SQLException if an error occurs during database access.
+     */
+    public static Map<Integer, List<Answer>> loadAnswersFor(DatabaseHelper dbHelper, Collection<Integer> questionIds)
+            throws SQLException {
+        Map<Integer, List<Answer>> result = new LinkedHashMap<>();
+        for (Integer questionId : questionIds) {
+            result.put(questionId, new ArrayList<>());
+        }
+        if (result.isEmpty()) {
+            return result;
+        }
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement pstmt = NamedQuery.LOAD_ANSWERS_FOR_QUESTIONS.prepare(connection)) {
+            // Bound as one array, so the SQL (and the cached statement) is the same for any number of ids
+            pstmt.setObject(1, result.keySet().toArray(new Integer[0]));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    Answer answer = new Answer(rs.getInt("id"), rs.getInt("questionId"), rs.getString("content"));
+                    result.get(answer.getQuestionId()).add(answer);
+                }
             }
         }
+        return result;
+    }
+
+    /**
+     * Inserts many answers at once using JDBC batching, committing every
+     * {@value #DEFAULT_BATCH_SIZE} rows. Each answer gets its generated id.
+     * Like {@link Answer#create(DatabaseHelper)}, this adds them to the local list only
+     * if it follows the database (see loadAllAnswers), once they are committed.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param answers the answers to insert.
+     * @return the generated ids in input order, plus timing and throughput.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public BatchResult createAll(DatabaseHelper dbHelper, Collection<Answer> answers) throws SQLException {
+        return createAll(dbHelper, answers, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Same as {@link #createAll(DatabaseHelper, Collection)} with an explicit batch size.
+     */
+    public BatchResult createAll(DatabaseHelper dbHelper, Collection<Answer> answers, int batchSize) throws SQLException {
+        List<Answer> rows = new ArrayList<>(answers);
+        BatchResult result = dbHelper.insertBatch(NamedQuery.INSERT_ANSWER, rows, (pstmt, a) -> {
+            pstmt.setInt(1, a.getQuestionId());
+            pstmt.setString(2, a.getContent());
+        }, batchSize);
+        int[] ids = result.getGeneratedIds();
+        for (int i = 0; i < ids.length; i++) {
+            rows.get(i).assignId(ids[i]);
+        }
+        dbHelper.afterCommit(() -> rows.forEach(dbHelper.answerEvents()::fireCreated));
+        return result;
     }
 
     /**
@@ -51,17 +434,143 @@ public class Answers {
      * @param keyword the keyword to search for.
      * @return a list of Answer objects whose content contains the keyword.
      */
-    public List<Answer> searchAnswers(String keyword) {
+    public synchronized List<Answer> searchAnswers(String keyword) {
+        // Same matches, in the same order, as a case-insensitive contains() over the list. While the
+        // keyword is being typed, each longer one only re-checks the previous matches; a keyword
+        // searched again comes from the cache until an answer containing it changes
+        return substringIndex.search(keyword);
+    }
+
+    /**
+     * Returns the cache of recent searchAnswers results, for its hit rate and
+     * other metrics. Creating, updating or deleting an answer drops only the
+     * cached keywords that its old or new content contains.
+     *
+     * @return the cache, keyed by lower-cased keyword.
+     */
+    public SearchCache getSearchCache() {
+        return substringIndex.getCache();
+    }
+
+    /**
+     * Replaces the searchAnswers cache with an empty one holding up to
+     * {@code maxEntries} keywords (by default {@value SearchCache#DEFAULT_MAX_ENTRIES}).
+     *
+     * @param maxEntries the most keywords kept; 0 turns caching off.
+     */
+    public void setSearchCacheSize(int maxEntries) {
+        substringIndex.setCacheSize(maxEntries);
+    }
+
+    /**
+     * Searches for answers containing all of the given words, using the word
+     * index instead of scanning every answer. Unlike searchAnswers, words must
+     * match whole (case-insensitively): "jdbc driver" finds "The JDBC driver"
+     * but "jdb" finds nothing.
+     *
+     * @param words one or more words separated by spaces or punctuation.
+     * @return the matching answers, ordered by id.
+     */
+    public List<Answer> searchKeywords(String words) {
+        return index.search(words);
+    }
+
+    /**
+     * Ranks the answers containing any of the given words by relevance (BM25),
+     * so the most useful ones come first however many match. The term
+     * statistics behind the scores follow every create, update and delete,
+     * like the word index itself.
+     *
+     * @param words one or more words separated by spaces or punctuation.
+     * @param limit the maximum number of answers to return.
+     * @return the best matching answers, most relevant first.
+     */
+    public List<Answer> rankAnswers(String words, int limit) {
+        return index.rank(words, limit);
+    }
+
+    /**
+     * Finds the same answers as {@link #searchAnswers(String)}, all of them, but
+     * most relevant first: the matches are ordered by the BM25 score of the
+     * keyword's words. Unlike rankAnswers, answers holding only some of the
+     * words ("3" for "homework 3") do not match; matches without a whole
+     * word of the keyword (a fragment such as "jdb") come last, in list order.
+     *
+     * @param keyword the keyword to search for.
+     * @return the answers whose content contains the keyword, most relevant first.
+     */
+    public synchronized List<Answer> searchAnswersRanked(String keyword) {
+        return index.rankWithin(keyword, substringIndex.search(keyword));
+    }
+
+    /**
+     * Completes the word being typed from the words of the indexed answers,
+     * most common first, for search-as-you-type suggestions.
+     *
+     * @param prefix the start of a word.
+     * @param limit  the maximum number of completions.
+     * @return words starting with the prefix.
+     */
+    public List<String> completeWord(String prefix, int limit) {
+        return index.complete(prefix, limit);
+    }
+
+    /**
+     * Searches for answers containing all of the given words with the
+     * configured {@link SearchBackend}: the local word index, or H2's full-text
+     * index, in which case nothing needs to be loaded first.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param words one or more words.
+     * @return the matching answers.
+     * @throws SQLException if a DATABASE search fails.
+     */
+    public List<Answer> search(DatabaseHelper dbHelper, String words) throws SQLException {
+        if (searchBackend == SearchBackend.DATABASE) {
+            return searchDatabase(dbHelper, words, DATABASE_SEARCH_LIMIT);
+        }
+        return searchKeywords(words);
+    }
+
+    /**
+     * Runs a word search inside the database using H2's full-text index and
+     * reads back only the matching answers, best matches first. The local list
+     * is not used or changed. The index only exists while the helper is
+     * configured with the DATABASE backend ({@code cse360.search.backend});
+     * otherwise nothing is found.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param words one or more words; all of them must match.
+     * @param limit the maximum number of answers to return.
+     * @return the matching answers.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public static List<Answer> searchDatabase(DatabaseHelper dbHelper, String words, int limit) throws SQLException {
         List<Answer> result = new ArrayList<>();
-        String lowerKeyword = keyword.toLowerCase();
-        for (Answer a : answerList) {
-            if (a.getContent().toLowerCase().contains(lowerKeyword)) {
-                result.add(a);
+        if (InvertedIndex.tokenize(words).length == 0) {
+            return result;
+        }
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement pstmt = NamedQuery.FULLTEXT_SEARCH_ANSWERS.prepare(connection)) {
+            pstmt.setString(1, words);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new Answer(rs.getInt("id"), rs.getInt("questionId"), rs.getString("content")));
+                }
             }
         }
         return result;
     }
 
+    public SearchBackend getSearchBackend() {
+        return searchBackend;
+    }
+
+    public void setSearchBackend(SearchBackend searchBackend) {
+        this.searchBackend = searchBackend;
+    }
+
     /**
      * Adds an Answer to the local list.
      * Note: This method only adds the answer to the list. To persist it in the database,
@@ -69,8 +578,10 @@ public class Answers {
      *
      * @param a the Answer object to add.
      */
-    public void addAnswer(Answer a) {
+    public synchronized void addAnswer(Answer a) {
         answerList.add(a);
+        index.add(a);
+        substringIndex.add(a);
     }
 
     /**
@@ -80,16 +591,20 @@ public class Answers {
      *
      * @param a the Answer object to remove.
      */
-    public void removeAnswer(Answer a) {
+    public synchronized void removeAnswer(Answer a) {
         answerList.remove(a);
+        index.remove(a);
+        substringIndex.remove(a);
     }
 
     /**
      * Retrieves the local list of all loaded answers.
      *
-     * @return the list of Answer objects.
+     * @return a read-only snapshot of the list; later changes (e.g. from writes on other threads) do not
+     *         affect it, and changing it throws UnsupportedOperationException. Use addAnswer and
+     *         removeAnswer to change the list itself.
      */
-    public List<Answer> getAnswerList() {
-        return answerList;
+    public synchronized List<Answer> getAnswerList() {
+        return Collections.unmodifiableList(new ArrayList<>(answerList));
     }
 }
@@ -1,15 +1,21 @@
 package application;
 
+import databasePart1.AsyncDatabaseHelper;
 import databasePart1.DatabaseHelper;
+import databasePart1.SearchBackend;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The AnswersApp class demonstrates how to load and display all answers
@@ -18,7 +24,19 @@ import java.util.List;
 public class AnswersApp extends Application {
 
     private DatabaseHelper dbHelper = new DatabaseHelper();
+    // What local search covers: the page on screen, or every answer with cse360.search.loadAll
     private Answers answersManager = new Answers();
+    // The full load for search followed by each refresh, so they never overlap; null unless loading all
+    private CompletableFuture<?> searchLoad;
+
+    // Rows fetched per page; only what is on screen is loaded
+    private static final int PAGE_SIZE = 50;
+    // afterId of each page before the current one, for the Previous button
+    private final Deque<Integer> previousPages = new ArrayDeque<>();
+    private Page<Answer> currentPage;
+
+    // Completions while typing and debounced live search
+    private TypeAhead typeAhead;
 
     @Override
     public void start(Stage primaryStage) {
@@ -30,42 +48,61 @@ public class AnswersApp extends Application {
             Label titleLabel = new Label("All Answers");
             ListView<String> listView = new ListView<>();
             Button loadButton = new Button("Load Answers");
+            Button previousButton = new Button("Previous");
+            Button nextButton = new Button("Next");
+            Label pageLabel = new Label();
+            previousButton.setDisable(true);
+            nextButton.setDisable(true);
+            HBox pager = new HBox(10, previousButton, nextButton, pageLabel);
             TextField searchField = new TextField();
             searchField.setPromptText("Enter keyword to search");
             Button searchButton = new Button("Search");
 
             // Layout
-            VBox root = new VBox(10, titleLabel, loadButton, searchField, searchButton, listView);
+            VBox root = new VBox(10, titleLabel, loadButton, searchField, searchButton, listView, pager);
             root.setPadding(new Insets(15));
 
-            // Load all answers button action
+            // Button actions to load the first, next and previous page
             loadButton.setOnAction(e -> {
-                try {
-                    answersManager.loadAllAnswers(dbHelper);
-                    // Clear the ListView and add loaded answers
-                    listView.getItems().clear();
-                    for (Answer a : answersManager.getAnswerList()) {
-                        listView.getItems().add(a.toString());
-                    }
-                } catch (SQLException ex) {
-                    showAlert("Error", "Failed to load answers: " + ex.getMessage());
-                }
+                loadPage(0, 0, listView, pageLabel, previousButton, nextButton);
+                refreshSearch();
             });
+            nextButton.setOnAction(e -> loadPage(currentPage.getLastId(), 1, listView, pageLabel, previousButton, nextButton));
+            previousButton.setOnAction(e -> loadPage(previousPages.peek(), -1, listView, pageLabel, previousButton, nextButton));
 
             // Search button action
             searchButton.setOnAction(e -> {
                 String keyword = searchField.getText();
-                List<Answer> results = answersManager.searchAnswers(keyword);
-                listView.getItems().clear();
-                if (results.isEmpty()) {
-                    listView.getItems().add("No answers found with keyword: " + keyword);
-                } else {
-                    for (Answer a : results) {
-                        listView.getItems().add(a.toString());
-                    }
+                int generation = typeAhead.newSearch();
+                if (dbHelper.getConfig().getSearchBackend() == SearchBackend.DATABASE) {
+                    // Let the database's full-text index find the matches
+                    searchButton.setDisable(true);
+                    CompletableFuture<List<Answer>> search = dbHelper.async().searchAnswersInDatabase(keyword);
+                    typeAhead.track(search);
+                    search.whenComplete((results, ex) -> {
+                        searchButton.setDisable(false);
+                        // Typing has moved on since; this also covers the cancelled search
+                        if (!typeAhead.isCurrent(generation)) {
+                            return;
+                        }
+                        if (ex != null) {
+                            showAlert("Error", "Search failed: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+                            return;
+                        }
+                        showResults(listView, keyword, results);
+                    });
+                    return;
                 }
+                // Every answer containing the keyword, best first
+                showResults(listView, keyword, answersManager.searchAnswersRanked(keyword));
             });
 
+            // Suggestions on every keystroke, results once typing pauses
+            typeAhead = new TypeAhead(searchField, prefix -> answersManager.completeWord(prefix, TypeAhead.MAX_COMPLETIONS),
+                    keyword -> liveSearch(listView, keyword));
+
+            loadSearch(searchField, searchButton);
+
             Scene scene = new Scene(root, 500, 400);
             primaryStage.setScene(scene);
             primaryStage.setTitle("Answers Collection Demo");
@@ -76,6 +113,145 @@ public class AnswersApp extends Application {
         }
     }
 
+    /**
+     * With cse360.search.loadAll set, loads every answer into
+     * {@code answersManager} on a background thread, so that search, live search
+     * and completions cover all of them; searching waits until the load is done. Otherwise
+     * local search covers the page on screen and nothing more is loaded, and
+     * the DATABASE backend searches in the database.
+     */
+    private void loadSearch(TextField searchField, Button searchButton) {
+        if (!isLoadingAll()) {
+            if (dbHelper.getConfig().getSearchBackend() == SearchBackend.LOCAL) {
+                searchField.setPromptText("Enter keyword to search this page");
+            }
+            return;
+        }
+        searchField.setDisable(true);
+        searchButton.setDisable(true);
+        searchLoad = dbHelper.async().loadAllAnswers().whenComplete((loaded, ex) -> {
+            searchField.setDisable(false);
+            searchButton.setDisable(false);
+            if (ex != null) {
+                showAlert("Error", "Failed to load answers for search: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+                return;
+            }
+            answersManager = loaded;
+        });
+    }
+
+    private boolean isLoadingAll() {
+        return dbHelper.getConfig().getSearchBackend() == SearchBackend.LOCAL && dbHelper.getConfig().isSearchLoadAll();
+    }
+
+    // Picks up changes made by other clients; writes made here already reach the list through its listener.
+    // Runs after the full load (even a failed one, as a retry) and any earlier refresh, never alongside them
+    private void refreshSearch() {
+        if (searchLoad == null) {
+            return;
+        }
+        CompletableFuture<Integer> refresh = searchLoad.exceptionally(ex -> null)
+                .thenCompose(previous -> dbHelper.async().refreshAnswers(answersManager));
+        searchLoad = refresh;
+        refresh.exceptionally(ex -> {
+            showAlert("Error", "Failed to refresh answers for search: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+            return 0;
+        });
+    }
+
+    /**
+     * Loads the page after the given id on a background thread and shows it.
+     *
+     * @param afterId   the id to continue after (0 for the first page).
+     * @param direction 0 for the first page, 1 for the next one, -1 for the previous one.
+     * @param listView  the list to fill.
+     * @param pageLabel shows which rows are on screen.
+     */
+    private void loadPage(int afterId, int direction, ListView<String> listView, Label pageLabel,
+            Button previousButton, Button nextButton) {
+        previousButton.setDisable(true);
+        nextButton.setDisable(true);
+        dbHelper.async().loadAnswerPage(afterId, PAGE_SIZE).whenComplete((page, ex) -> {
+            if (ex != null) {
+                previousButton.setDisable(previousPages.isEmpty());
+                nextButton.setDisable(currentPage == null || !currentPage.hasMore());
+                showAlert("Error", "Failed to load answers: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+                return;
+            }
+            // Only move through the history once the page has actually loaded
+            if (direction == 0) {
+                previousPages.clear();
+            } else if (direction > 0) {
+                previousPages.push(currentPage.getAfterId());
+            } else {
+                previousPages.pop();
+            }
+            currentPage = page;
+            if (searchLoad == null) {
+                // Search works on the page that is on screen
+                answersManager = new Answers();
+                for (Answer item : page.getItems()) {
+                    answersManager.addAnswer(item);
+                }
+            }
+            showPage(listView);
+            int first = previousPages.size() * PAGE_SIZE + 1;
+            pageLabel.setText(page.getItems().isEmpty() ? "No answers"
+                    : first + "-" + (first + page.getItems().size() - 1) + " of ~" + page.getTotalEstimate());
+            previousButton.setDisable(previousPages.isEmpty());
+            nextButton.setDisable(!page.hasMore());
+        });
+    }
+
+    // Shows the current page, e.g. again once the search field is cleared
+    private void showPage(ListView<String> listView) {
+        listView.getItems().clear();
+        if (currentPage == null) {
+            return;
+        }
+        for (Answer item : currentPage.getItems()) {
+            listView.getItems().add(item.toString());
+        }
+    }
+
+    /**
+     * Runs when typing pauses. Locally, a keyword that extends the previous one
+     * only re-checks the previous matches (see TrigramIndex); with the DATABASE
+     * backend the full-text search runs in the background and is cancelled by
+     * the next keystroke.
+     */
+    private void liveSearch(ListView<String> listView, String keyword) {
+        int generation = typeAhead.newSearch();
+        if (keyword.isBlank()) {
+            showPage(listView);
+            return;
+        }
+        if (dbHelper.getConfig().getSearchBackend() == SearchBackend.DATABASE) {
+            CompletableFuture<List<Answer>> search = dbHelper.async().searchAnswersInDatabase(keyword);
+            typeAhead.track(search);
+            search.whenComplete((results, ex) -> {
+                // Failures while typing are not worth an alert; the Search button reports them
+                if (ex == null && typeAhead.isCurrent(generation)) {
+                    showResults(listView, keyword, results);
+                }
+            });
+            return;
+        }
+        showResults(listView, keyword, answersManager.searchAnswers(keyword));
+    }
+
+    // Shows search results in place of the current page
+    private void showResults(ListView<String> listView, String keyword, List<Answer> results) {
+        listView.getItems().clear();
+        if (results.isEmpty()) {
+            listView.getItems().add("No answers found with keyword: " + keyword);
+        } else {
+            for (Answer a : results) {
+                listView.getItems().add(a.toString());
+            }
+        }
+    }
+
     /**
      * Utility method to show an alert dialog.
      *
@@ -0,0 +1,293 @@
+package application;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The Bm25Ranker class scores documents against a query with Okapi BM25 and
+ * returns the best ones. It keeps, per word, the documents containing it and
+ * how often, plus every document's length, and updates these statistics as
+ * documents are added and removed, so ranking never needs a rebuild.
+ *
+ * A query is scored term at a time into a dense score array (one slot per
+ * document), touching only the postings of the query's words; the best
+ * {@code limit} documents are then picked with a bounded min-heap, so ranking
+ * costs O(postings + matches log limit) and never sorts all matches.
+ *
+ * Not thread-safe; {@link InvertedIndex} calls it under its own lock.
+ */
+public class Bm25Ranker {
+
+    // Usual BM25 parameters: term-frequency saturation and length normalisation
+    public static final float K1 = 1.2f;
+    public static final float B = 0.75f;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    // Per slot: document id and length in words; slots of removed documents are reused
+    private int[] idBySlot = new int[1024];
+    private int[] lengthBySlot = new int[1024];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+    private int documents;
+    private long totalLength;
+
+    // Scratch space for rank(); scores are back to 0 between calls
+    private float[] scores = new float[1024];
+    private int[] touched = new int[1024];
+
+    /**
+     * Adds a document. To change one, remove it first with its old words.
+     *
+     * @param id     the document id, not already ranked.
+     * @param counts how often each (lower-case) word occurs in the document.
+     */
+    public void add(int id, Map<String, Integer> counts) {
+        if (slotById.containsKey(id)) {
+            throw new IllegalArgumentException("Document " + id + " is already ranked.");
+        }
+        int slot = allocateSlot(id);
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new Postings()).add(slot, entry.getValue());
+            length += entry.getValue();
+        }
+        lengthBySlot[slot] = length;
+        documents++;
+        totalLength += length;
+    }
+
+    /**
+     * Removes a document.
+     *
+     * @param id    the document id.
+     * @param terms the distinct words it was added with (extra words are ignored).
+     */
+    public void remove(int id, Iterable<String> terms) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list != null && list.remove(slot) && list.size == 0) {
+                postings.remove(term);
+            }
+        }
+        documents--;
+        totalLength -= lengthBySlot[slot];
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private int allocateSlot(int id) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot == idBySlot.length) {
+                idBySlot = Arrays.copyOf(idBySlot, slot * 2);
+                lengthBySlot = Arrays.copyOf(lengthBySlot, slot * 2);
+                scores = new float[slot * 2];
+                touched = new int[slot * 2];
+            }
+        }
+        idBySlot[slot] = id;
+        slotById.put(id, slot);
+        return slot;
+    }
+
+    public void clear() {
+        postings.clear();
+        slotById.clear();
+        freeCount = 0;
+        slotCount = 0;
+        documents = 0;
+        totalLength = 0;
+    }
+
+    public int size() {
+        return documents;
+    }
+
+    /**
+     * Scores every document containing at least one of the terms and returns
+     * the best ones. Ties are broken by the lower id, so results are stable.
+     *
+     * @param terms distinct lower-case query words.
+     * @param limit the maximum number of results.
+     * @return the ids of the best documents, best first.
+     */
+    public int[] rank(String[] terms, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1.");
+        }
+        if (documents == 0) {
+            return new int[0];
+        }
+        int matched = score(terms);
+
+        // Min-heap of the best slots so far; the root is the weakest and is replaced first
+        int[] heap = new int[Math.min(limit, matched)];
+        int heapSize = 0;
+        for (int i = 0; i < matched; i++) {
+            int slot = touched[i];
+            if (heapSize < heap.length) {
+                heap[heapSize++] = slot;
+                siftUp(heap, heapSize - 1);
+            } else if (better(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, heapSize);
+            }
+        }
+        int[] result = new int[heapSize];
+        while (heapSize > 0) {
+            result[heapSize - 1] = idBySlot[heap[0]];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+        }
+        clearScores(matched);
+        return result;
+    }
+
+    /**
+     * Orders the given documents by their score against the terms, best
+     * first, and keeps all of them: the caller decides which documents match,
+     * e.g. those containing the whole query. Documents containing none of the
+     * terms, or not ranked at all, score 0 and stay in their given order after
+     * the others.
+     *
+     * @param terms distinct lower-case query words.
+     * @param ids   the documents to order.
+     * @return the positions in {@code ids}, best first.
+     */
+    public int[] order(String[] terms, int[] ids) {
+        int matched = documents == 0 ? 0 : score(terms);
+        float[] scoreAt = new float[ids.length];
+        Integer[] positions = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            Integer slot = slotById.get(ids[i]);
+            scoreAt[i] = slot == null ? 0 : scores[slot];
+            positions[i] = i;
+        }
+        clearScores(matched);
+        // A stable sort, so equal scores keep the given order
+        Arrays.sort(positions, (a, b) -> Float.compare(scoreAt[b], scoreAt[a]));
+        int[] result = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = positions[i];
+        }
+        return result;
+    }
+
+    // Adds up each document's score in scores[] and lists the documents scored in touched[]; returns how many
+    private int score(String[] terms) {
+        float averageLength = (float) totalLength / documents;
+        int matched = 0;
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            // Lucene's idf, which stays positive for words found in most documents
+            float idf = (float) Math.log(1 + (documents - list.size + 0.5) / (list.size + 0.5));
+            for (int i = 0; i < list.size; i++) {
+                int slot = list.slots[i];
+                int tf = list.freqs[i];
+                float norm = K1 * (1 - B + B * lengthBySlot[slot] / averageLength);
+                if (scores[slot] == 0) {
+                    touched[matched++] = slot;
+                }
+                scores[slot] += idf * tf * (K1 + 1) / (tf + norm);
+            }
+        }
+        return matched;
+    }
+
+    // Leaves the scratch scores at 0 for the next call
+    private void clearScores(int matched) {
+        for (int i = 0; i < matched; i++) {
+            scores[touched[i]] = 0;
+        }
+    }
+
+    private boolean better(int a, int b) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && idBySlot[a] < idBySlot[b]);
+    }
+
+    private void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (!better(heap[parent], heap[i])) {
+                return;
+            }
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && better(heap[child], heap[child + 1])) {
+                child++;
+            }
+            if (!better(heap[i], heap[child])) {
+                return;
+            }
+            swap(heap, i, child);
+            i = child;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        int t = heap[i];
+        heap[i] = heap[j];
+        heap[j] = t;
+    }
+
+    // Slots containing one word with their term frequencies, sorted by slot
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+
+        void add(int slot, int freq) {
+            int pos = size > 0 && slots[size - 1] >= slot ? Arrays.binarySearch(slots, 0, size, slot) : -size - 1;
+            if (pos >= 0) {
+                freqs[pos] = freq;
+                return;
+            }
+            pos = -pos - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+                freqs = Arrays.copyOf(freqs, slots.length);
+            }
+            System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+            System.arraycopy(freqs, pos, freqs, pos + 1, size - pos);
+            slots[pos] = slot;
+            freqs[pos] = freq;
+            size++;
+        }
+
+        boolean remove(int slot) {
+            int pos = Arrays.binarySearch(slots, 0, size, slot);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(slots, pos + 1, slots, pos, size - pos - 1);
+            System.arraycopy(freqs, pos + 1, freqs, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package application;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * The CaseInsensitiveMatcher class answers
+ * {@code text.toLowerCase(Locale.ROOT).contains(keyword.toLowerCase(Locale.ROOT))}
+ * without building the lower-cased copy of the text. The keyword is folded
+ * once; each text is then scanned in place, jumping between occurrences of
+ * the keyword's first character and comparing the rest with ASCII case
+ * folding. Case is always folded under the root locale, like InvertedIndex,
+ * so results do not depend on the user's locale (Turkish 'I' included).
+ *
+ * ASCII folding is exact for ASCII keywords, except that two non-ASCII
+ * characters lower-case to ASCII letters (the Kelvin sign becomes 'k'). A
+ * text containing either of them that does not match, or a keyword that is
+ * not ASCII, falls back to {@code toLowerCase(Locale.ROOT)}. Course content
+ * practically never hits the fallback, so matching allocates nothing.
+ *
+ * A matcher is immutable and can be shared between threads.
+ */
+public final class CaseInsensitiveMatcher {
+
+    private final String lowerKeyword;
+    // The folded keyword, or null when it cannot be matched with ASCII folding
+    private final char[] pattern;
+
+    public CaseInsensitiveMatcher(String keyword) {
+        this.lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+        this.pattern = isAscii(lowerKeyword) ? lowerKeyword.toCharArray() : null;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    // The keyword as it is compared, lower-cased.
+    public String getLowerKeyword() {
+        return lowerKeyword;
+    }
+
+    /**
+     * Checks whether the text contains the keyword, ignoring case.
+     *
+     * @param text the original (not lower-cased) text.
+     * @return the same answer as {@code text.toLowerCase(Locale.ROOT).contains(lowerKeyword)}.
+     */
+    public boolean matches(String text) {
+        if (pattern == null) {
+            return text.toLowerCase(Locale.ROOT).contains(lowerKeyword);
+        }
+        if (pattern.length == 0) {
+            return true;
+        }
+        // Jump between occurrences of the first character in either case; indexOf is vectorised
+        char first = pattern[0];
+        char upperFirst = first >= 'a' && first <= 'z' ? (char) (first - ('a' - 'A')) : first;
+        int last = text.length() - pattern.length;
+        int lower = text.indexOf(first);
+        int upper = upperFirst == first ? -1 : text.indexOf(upperFirst);
+        while (lower >= 0 || upper >= 0) {
+            int i = upper < 0 || (lower >= 0 && lower < upper) ? lower : upper;
+            if (i > last) {
+                break;
+            }
+            if (regionMatches(text, i + 1)) {
+                return true;
+            }
+            if (i == lower) {
+                lower = text.indexOf(first, i + 1);
+            } else {
+                upper = text.indexOf(upperFirst, i + 1);
+            }
+        }
+        return mayLowerCaseToAscii(text) && text.toLowerCase(Locale.ROOT).contains(lowerKeyword);
+    }
+
+    private boolean regionMatches(String text, int from) {
+        for (int k = 1; k < pattern.length; k++) {
+            char c = text.charAt(from + k - 1);
+            if (c >= 0x80 || fold(c) != pattern[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The only non-ASCII characters whose lower case contains ASCII: capital I with dot and the
+    // Kelvin sign. Both are above U+00FF, so for Latin-1 strings these lookups return at once.
+    private static boolean mayLowerCaseToAscii(String text) {
+        return text.indexOf('\u0130') >= 0 || text.indexOf('\u212A') >= 0;
+    }
+
+    /**
+     * Same as {@link #matches(String)} for text already lower-cased with
+     * {@code toLowerCase(Locale.ROOT)}, such as the copies kept by {@link TrigramIndex}.
+     */
+    public boolean matchesLowerCase(String lowerText) {
+        return lowerText.contains(lowerKeyword);
+    }
+
+    /**
+     * Same as {@link #matches(String)} for UTF-8 encoded text, e.g. a row of a
+     * {@link QuestionStore}, without decoding it.
+     *
+     * @param utf8  the buffer holding the text.
+     * @param start the index of the text's first byte.
+     * @param end   the index just past its last byte.
+     * @return whether the decoded text contains the keyword, ignoring case.
+     */
+    public boolean matches(ByteBuffer utf8, int start, int end) {
+        if (pattern == null) {
+            return decode(utf8, start, end).toLowerCase(Locale.ROOT).contains(lowerKeyword);
+        }
+        int m = pattern.length;
+        if (m == 0) {
+            return true;
+        }
+        char first = pattern[0];
+        int last = end - m;
+        boolean nonAscii = false;
+        for (int i = start; i < end; i++) {
+            byte b = utf8.get(i);
+            // Every byte of a multi-byte UTF-8 sequence has the high bit set; 0xC4 and 0xE2
+            // lead the encodings of the two characters mayLowerCaseToAscii looks for
+            if (b < 0) {
+                nonAscii |= b == (byte) 0xC4 || b == (byte) 0xE2;
+            } else if (i <= last && fold((char) b) == first && regionMatches(utf8, i + 1)) {
+                return true;
+            }
+        }
+        return nonAscii && decode(utf8, start, end).toLowerCase(Locale.ROOT).contains(lowerKeyword);
+    }
+
+    private boolean regionMatches(ByteBuffer utf8, int from) {
+        for (int k = 1; k < pattern.length; k++) {
+            byte b = utf8.get(from + k - 1);
+            if (b < 0 || fold((char) b) != pattern[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(ByteBuffer utf8, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        utf8.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package application;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The ChangeSet class holds what a refresh read from the database: the rows
+ * inserted or updated and the ids deleted since a given row version, or, for
+ * a list that was never loaded in full, every row. Reading and applying are
+ * separate steps so that the query can run on a background thread while the
+ * list itself is only patched on the thread that owns it (see
+ * AsyncDatabaseHelper.refreshQuestions).
+ *
+ * @param <T> the row type (Question or Answer).
+ */
+public class ChangeSet<T> {
+
+    private final long since;
+    private final long version;
+    private final Map<Integer, T> changed;
+    private final Set<Integer> deleted;
+    private final boolean full;
+
+    /**
+     * @param since   the version the list was current to when this was read; -1 for a full load.
+     * @param version the newest version read, to continue from next time.
+     * @param changed the changed rows by id, or every row (in load order) for a full load.
+     * @param deleted the ids deleted since {@code since}.
+     * @param full    whether this replaces the whole list.
+     */
+    public ChangeSet(long since, long version, Map<Integer, T> changed, Set<Integer> deleted, boolean full) {
+        this.since = since;
+        this.version = version;
+        this.changed = changed;
+        this.deleted = deleted;
+        this.full = full;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<Integer, T> getChanged() {
+        return changed;
+    }
+
+    public Set<Integer> getDeleted() {
+        return deleted;
+    }
+
+    // Whether this holds every row rather than the differences
+    public boolean isFull() {
+        return full;
+    }
+
+    // The rows of a full load, in load order
+    public Collection<T> getRows() {
+        return changed.values();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeSet [since=" + since + ", version=" + version + ", changed=" + changed.size() + ", deleted="
+                + deleted.size() + ", full=" + full + "]";
+    }
+}
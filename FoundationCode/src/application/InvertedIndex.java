@@ -0,0 +1,296 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The InvertedIndex class maps each word of the indexed texts to the ids
+ * that contain it, so a keyword query touches only the matching entries
+ * instead of scanning every text. It is shared by Questions and Answers and
+ * kept up to date incrementally as entries are added, changed or removed.
+ * Entries are keyed by their database id, so only saved entities are indexed.
+ *
+ * Words are maximal runs of letters and digits, compared case-insensitively.
+ * A query matches the entries that contain every word of the query;
+ * {@link #rank(String, int)} instead orders the entries containing any of
+ * them by BM25 relevance.
+ *
+ * @param <T> the indexed entity type.
+ */
+public class InvertedIndex<T> {
+
+    private static final String[] NO_TOKENS = new String[0];
+
+    private final ToIntFunction<T> idOf;
+    private final Function<T, String> textOf;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    // Indexed entities and their words, needed to undo an entry on update or removal
+    private final Map<Integer, T> entities = new HashMap<>();
+    private final Map<Integer, String[]> tokensById = new HashMap<>();
+    // Word frequencies and lengths for rank(), updated along with the postings
+    private final Bm25Ranker ranker = new Bm25Ranker();
+    // Every indexed word, for correcting misspelled query words
+    private final WordTrie vocabulary = new WordTrie();
+
+    public InvertedIndex(ToIntFunction<T> idOf, Function<T, String> textOf) {
+        this.idOf = idOf;
+        this.textOf = textOf;
+    }
+
+    /**
+     * Splits text into lower-case words, without duplicates.
+     *
+     * @param text the text to split.
+     * @return the distinct words in order of first appearance.
+     */
+    public static String[] tokenize(String text) {
+        return countWords(text).keySet().toArray(NO_TOKENS);
+    }
+
+    // Each lower-case word of the text with the number of times it occurs, in order of first appearance
+    private static Map<String, Integer> countWords(String text) {
+        Map<String, Integer> tokens = new LinkedHashMap<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.merge(text.substring(start, i).toLowerCase(Locale.ROOT), 1, Integer::sum);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Adds an entity, replacing what was indexed under its id before.
+    public synchronized void add(T entity) {
+        int id = idOf.applyAsInt(entity);
+        removeId(id);
+        Map<String, Integer> counts = countWords(textOf.apply(entity));
+        String[] tokens = counts.keySet().toArray(NO_TOKENS);
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> {
+                vocabulary.add(t);
+                return new PostingList();
+            }).add(id);
+        }
+        entities.put(id, entity);
+        tokensById.put(id, tokens);
+        ranker.add(id, counts);
+    }
+
+    public synchronized void remove(T entity) {
+        removeId(idOf.applyAsInt(entity));
+    }
+
+    private void removeId(int id) {
+        String[] tokens = tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        entities.remove(id);
+        ranker.remove(id, Arrays.asList(tokens));
+        for (String token : tokens) {
+            PostingList list = postings.get(token);
+            if (list != null && list.remove(id) && list.isEmpty()) {
+                postings.remove(token);
+                vocabulary.remove(token);
+            }
+        }
+    }
+
+    // Rebuilds the index from scratch.
+    public synchronized void rebuild(Iterable<T> all) {
+        clear();
+        for (T entity : all) {
+            add(entity);
+        }
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        entities.clear();
+        tokensById.clear();
+        ranker.clear();
+        vocabulary.clear();
+    }
+
+    /**
+     * Returns the ids of the entries containing every word of the query, in
+     * increasing order. The rarest word is looked up first and each further
+     * word can only shrink the candidate set.
+     *
+     * @param query one or more words.
+     * @return the matching ids; empty if the query has no words.
+     */
+    public synchronized int[] searchIds(String query) {
+        String[] words = tokenize(query);
+        if (words.length == 0) {
+            return new int[0];
+        }
+        PostingList[] lists = new PostingList[words.length];
+        for (int i = 0; i < words.length; i++) {
+            lists[i] = postings.get(words[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+        int[] result = lists[0].toArray();
+        int count = result.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = lists[i].retainIn(result, count);
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Same as {@link #searchIds(String)} but returns the indexed entities.
+     *
+     * @param query one or more words.
+     * @return the matching entities, ordered by id.
+     */
+    public synchronized List<T> search(String query) {
+        int[] ids = searchIds(query);
+        List<T> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(entities.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * Ranks the entries containing at least one word of the query by BM25
+     * relevance: rare words count for more than common ones, repeated words
+     * for more than single mentions, and short entries that match beat long
+     * ones. Only the postings of the query's words are read, and only the top
+     * {@code limit} entries are kept while scoring.
+     *
+     * @param query one or more words.
+     * @param limit the maximum number of entries to return.
+     * @return the best matching entities, most relevant first.
+     */
+    public synchronized List<T> rank(String query, int limit) {
+        return rank(tokenize(query), limit);
+    }
+
+    /**
+     * Orders entries that are already known to match by their BM25 relevance
+     * to the query, best first. Nothing is added or dropped, so the caller's
+     * matching rules (e.g. substring search) decide what is shown and the
+     * index only decides the order.
+     *
+     * @param query   one or more words.
+     * @param matches the matching entities.
+     * @return the same entities, most relevant first; those without a whole-word match keep their order at the end.
+     */
+    public synchronized List<T> rankWithin(String query, List<T> matches) {
+        int[] ids = new int[matches.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idOf.applyAsInt(matches.get(i));
+        }
+        int[] order = ranker.order(tokenize(query), ids);
+        List<T> result = new ArrayList<>(order.length);
+        for (int position : order) {
+            result.add(matches.get(position));
+        }
+        return result;
+    }
+
+    private List<T> rank(String[] terms, int limit) {
+        int[] ids = ranker.rank(terms, limit);
+        List<T> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(entities.get(id));
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #rank(String, int)}, but tolerant of typos: each query
+     * word that is not in the index is replaced by the indexed words closest
+     * to it (see {@link #correct(String)}). The candidates come from a walk
+     * of a trie of the vocabulary, so no entry is ever compared to the query.
+     *
+     * @param query one or more words, possibly misspelled.
+     * @param limit the maximum number of entries to return.
+     * @return the best matching entities, most relevant first.
+     */
+    public synchronized List<T> rankFuzzy(String query, int limit) {
+        // Two misspellings can correct to the same word; score it once
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : tokenize(query)) {
+            terms.addAll(correct(word));
+        }
+        return rank(terms.toArray(NO_TOKENS), limit);
+    }
+
+    /**
+     * Corrects one word against the vocabulary. A word that is indexed stands
+     * as it is; otherwise the indexed words at the smallest edit distance are
+     * returned, allowing one edit for three-letter words and two for longer
+     * ones ("recursoin" finds "recursion", "jbdc" finds "jdbc"). Shorter words
+     * are too ambiguous to correct.
+     *
+     * @param word a lower-case word.
+     * @return the word itself, its closest indexed words, or nothing.
+     */
+    public synchronized List<String> correct(String word) {
+        if (postings.containsKey(word)) {
+            return List.of(word);
+        }
+        int maxDistance = word.length() < 3 ? 0 : word.length() == 3 ? 1 : 2;
+        return maxDistance == 0 ? List.of() : vocabulary.closest(word, maxDistance);
+    }
+
+    /**
+     * Completes a word prefix from the vocabulary, e.g. for type-ahead. Only
+     * the words under the prefix in the vocabulary trie are looked at, and the
+     * ones found in the most entries are kept with a bounded heap.
+     *
+     * @param prefix the start of a word, in any case.
+     * @param limit  the maximum number of completions.
+     * @return indexed words starting with the prefix, the most common first.
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        Comparator<String> byFrequency = Comparator.<String>comparingInt(word -> postings.get(word).size())
+                .thenComparing(Comparator.reverseOrder());
+        // The least common completion kept so far sits at the head and is dropped first
+        PriorityQueue<String> best = new PriorityQueue<>(byFrequency);
+        vocabulary.forEachWithPrefix(lowerPrefix, word -> {
+            best.add(word);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+        List<String> result = new ArrayList<>(best);
+        result.sort(byFrequency.reversed());
+        return result;
+    }
+
+    public synchronized int size() {
+        return entities.size();
+    }
+
+    // Number of distinct words
+    public synchronized int vocabularySize() {
+        return postings.size();
+    }
+}
@@ -1,8 +1,8 @@
 package application;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+
+import databasePart1.AsyncDatabaseHelper;
 import databasePart1.DatabaseHelper;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -34,13 +34,27 @@ public class OTP_PAGE {
 	    // When Generate OTP button is pressed, with a valid user it goes to the passcode scene
 	    GenerateOTP.setOnAction(a -> {
 	    	String userName = userNameField.getText();
-	    	if(databaseHelper.doesUserExist(userName)) {
-				String OTPassword = databaseHelper.generateOTPCode(userName);
-				OTPLabel.setText(OTPassword);
-	    	}
-			else {
-				errorLabel.setText("Username does not exist");
-			}
+	    	AsyncDatabaseHelper async = databaseHelper.async();
+	    	GenerateOTP.setDisable(true);
+	    	// Look up the user and generate the code off the UI thread
+	    	async.doesUserExist(userName).thenCompose(exists -> {
+	    		if (exists) {
+	    			return async.generateOTPCode(userName);
+	    		}
+	    		return CompletableFuture.<String>completedFuture(null);
+	    	}).whenComplete((OTPassword, ex) -> {
+	    		GenerateOTP.setDisable(false);
+	    		if (ex != null) {
+	    			errorLabel.setText("Database error");
+	    		}
+	    		else if (OTPassword != null) {
+	    			errorLabel.setText("");
+	    			OTPLabel.setText(OTPassword);
+	    		}
+	    		else {
+	    			errorLabel.setText("Username does not exist");
+	    		}
+	    	});
 	    });
 	    layout.getChildren().addAll(adminLabel, userNameField, GenerateOTP, OTPLabel, errorLabel);
 	    Scene One_Time_Password = new Scene(layout, 800, 400);
@@ -0,0 +1,57 @@
+package application;
+
+import java.util.List;
+
+/**
+ * The Page class holds one page of a keyset-paginated query: the rows, the id
+ * to continue after for the next page, and an estimate of the table size.
+ * Pages are addressed by the last id seen rather than by an offset, so
+ * fetching page 1000 costs the same as fetching page 1.
+ *
+ * @param <T> the row type (Question or Answer).
+ */
+public class Page<T> {
+
+    private final List<T> items;
+    private final int afterId;
+    private final int lastId;
+    private final boolean hasMore;
+    private final long totalEstimate;
+
+    public Page(List<T> items, int afterId, int lastId, boolean hasMore, long totalEstimate) {
+        this.items = items;
+        this.afterId = afterId;
+        this.lastId = lastId;
+        this.hasMore = hasMore;
+        this.totalEstimate = totalEstimate;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    // The id this page started after (0 for the first page)
+    public int getAfterId() {
+        return afterId;
+    }
+
+    // Pass this as afterId to load the next page
+    public int getLastId() {
+        return lastId;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    // Approximate number of rows in the whole table, from the database statistics
+    public long getTotalEstimate() {
+        return totalEstimate;
+    }
+
+    @Override
+    public String toString() {
+        return "Page [afterId=" + afterId + ", size=" + items.size() + ", lastId=" + lastId + ", hasMore=" + hasMore
+                + ", totalEstimate~" + totalEstimate + "]";
+    }
+}
@@ -0,0 +1,95 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * The PostingList class is a sorted set of ids stored in a primitive int
+ * array, used by the search indexes for the ids that contain one token. Ids
+ * usually arrive in increasing order, so adding one is normally an append.
+ */
+public class PostingList {
+
+    private int[] ids = new int[4];
+    private int size;
+
+    public void add(int id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                return; // Already present
+            }
+            insertAt(-pos - 1, id);
+            return;
+        }
+        ensureCapacity(size + 1);
+        ids[size++] = id;
+    }
+
+    private void insertAt(int index, int id) {
+        ensureCapacity(size + 1);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(capacity, ids.length + (ids.length >> 1)));
+        }
+    }
+
+    public boolean remove(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        return ids[index];
+    }
+
+    // A copy of the ids, in increasing order
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Intersects a sorted id array with this list, keeping the ids present in
+     * both. Each id of {@code sorted} is looked up by binary search, which is
+     * cheap when {@code sorted} is the smaller side.
+     *
+     * @param sorted ids in increasing order.
+     * @param count  how many entries of {@code sorted} are in use.
+     * @return the number of ids kept; they are compacted to the front of {@code sorted}.
+     */
+    public int retainIn(int[] sorted, int count) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int pos = Arrays.binarySearch(ids, from, size, sorted[i]);
+            if (pos >= 0) {
+                sorted[kept++] = sorted[i];
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+        }
+        return kept;
+    }
+}
@@ -1,6 +1,7 @@
 package application;
 
 import databasePart1.DatabaseHelper;
+import databasePart1.NamedQuery;
 import java.sql.*;
 
 public class Question {
@@ -29,6 +30,11 @@ public class Question {
         return id;
     }
 
+    // Set by the bulk insert once the database has generated the id
+    void assignId(int id) {
+        this.id = id;
+    }
+
     public String getContent() {
         return content;
     }
@@ -51,28 +57,38 @@ public class Question {
 
     // Create a new Question in the database.
     public void create(DatabaseHelper dbHelper) throws SQLException {
-        String sql = "INSERT INTO Questions (content) VALUES (?)";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, this.content);
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating question failed, no rows affected.");
-            }
-            // Retrieve the generated id
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    this.id = generatedKeys.getInt(1);
-                } else {
-                    throw new SQLException("Creating question failed, no ID obtained.");
+        // A transaction even on its own, so the row's version is stamped as it commits
+        dbHelper.inTransaction(db -> {
+            try (Connection connection = db.getConnection();
+                 PreparedStatement pstmt = NamedQuery.INSERT_QUESTION.prepare(connection)) {
+                pstmt.setString(1, this.content);
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new SQLException("Creating question failed, no rows affected.");
+                }
+                // Retrieve the generated id
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        this.id = generatedKeys.getInt(1);
+                    } else {
+                        throw new SQLException("Creating question failed, no ID obtained.");
+                    }
                 }
             }
-        }
+            db.stampAtCommit(NamedQuery.STAMP_QUESTIONS, this.id);
+            return null;
+        });
+        dbHelper.afterCommit(() -> dbHelper.questionEvents().fireCreated(this));
     }
 
-    // Read a Question from the database by id.
+    // Read a Question from the database by id; repeated reads come from dbHelper.questionCache().
     public static Question read(DatabaseHelper dbHelper, int questionId) throws SQLException {
-        String sql = "SELECT id, content FROM Questions WHERE id = ?";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql)) {
+        return dbHelper.questionCache().read(questionId, dbHelper, db -> readFromDatabase(db, questionId));
+    }
+
+    private static Question readFromDatabase(DatabaseHelper dbHelper, int questionId) throws SQLException {
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement pstmt = NamedQuery.READ_QUESTION.prepare(connection)) {
             pstmt.setInt(1, questionId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
@@ -91,28 +107,46 @@ public class Question {
         if (!isValidContent(newContent)) {
             throw new IllegalArgumentException("New question content cannot be empty.");
         }
-        String sql = "UPDATE Questions SET content = ? WHERE id = ?";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, newContent);
-            pstmt.setInt(2, this.id);
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Updating question failed, no rows affected.");
+        dbHelper.inTransaction(db -> {
+            try (Connection connection = db.getConnection();
+                 PreparedStatement pstmt = NamedQuery.UPDATE_QUESTION.prepare(connection)) {
+                pstmt.setString(1, newContent);
+                pstmt.setInt(2, this.id);
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new SQLException("Updating question failed, no rows affected.");
+                }
             }
+            db.stampAtCommit(NamedQuery.STAMP_QUESTIONS, this.id);
+            return null;
+        });
+        // Inside a transaction the object keeps its old content until the commit
+        dbHelper.afterCommit(() -> {
             this.content = newContent;
-        }
+            dbHelper.questionEvents().fireUpdated(this);
+        });
     }
 
     // Delete a Question from the database.
     public void delete(DatabaseHelper dbHelper) throws SQLException {
-        String sql = "DELETE FROM Questions WHERE id = ?";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, this.id);
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Deleting question failed, no rows affected.");
+        // The tombstone is written in the same transaction so other clients' refresh() sees the delete
+        dbHelper.inTransaction(db -> {
+            try (Connection connection = db.getConnection();
+                 PreparedStatement pstmt = NamedQuery.DELETE_QUESTION.prepare(connection);
+                 PreparedStatement tombstone = NamedQuery.RECORD_DELETION.prepare(connection)) {
+                pstmt.setInt(1, this.id);
+                int affectedRows = pstmt.executeUpdate();
+                if (affectedRows == 0) {
+                    throw new SQLException("Deleting question failed, no rows affected.");
+                }
+                tombstone.setString(1, "Questions");
+                tombstone.setInt(2, this.id);
+                tombstone.executeUpdate();
             }
-        }
+            db.stampAtCommit(NamedQuery.STAMP_QUESTION_DELETIONS, this.id);
+            return null;
+        });
+        dbHelper.afterCommit(() -> dbHelper.questionEvents().fireDeleted(this));
     }
 
     @Override
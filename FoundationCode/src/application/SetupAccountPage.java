@@ -5,6 +5,7 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -76,26 +77,29 @@ public class SetupAccountPage {
             String roles = String.join(",", selectedRoles); //Stores roles in the database (A.P.)
             
             try {
-            	// Check if the user already exists
-            	if(!databaseHelper.doesUserExist(userName)) {
-            		
-            		// Validate the invitation code
-            		if(databaseHelper.validateInvitationCode(code)) {
-            			
-            			// Create a new user and register them in the database
-            			// added the role for the user (A.P.)
-		            	User user=new User(userName, password, roles);
-		                databaseHelper.register(user);
-		                
-		             // Navigate to the Welcome Login Page
-		                new WelcomeLoginPage(databaseHelper).show(primaryStage,user);
+            	// The checks, marking the code as used and registering commit together
+            	User user = new User(userName, password, roles);
+            	String error = databaseHelper.inTransaction(Connection.TRANSACTION_REPEATABLE_READ, db -> {
+            		// Check if the user already exists
+            		if (db.doesUserExist(userName)) {
+            			return "This useruserName is taken!!.. Please use another to setup an account";
             		}
-            		else {
-            			errorLabel.setText("Please enter a valid invitation code");
+            		// Validate the invitation code
+            		if (!db.validateInvitationCode(code)) {
+            			return "Please enter a valid invitation code";
             		}
+            		// Create a new user and register them in the database
+            		// added the role for the user (A.P.)
+            		db.register(user);
+            		return null;
+            	});
+
+            	if (error == null) {
+            		// Navigate to the Welcome Login Page
+            		new WelcomeLoginPage(databaseHelper).show(primaryStage,user);
             	}
             	else {
-            		errorLabel.setText("This useruserName is taken!!.. Please use another to setup an account");
+            		errorLabel.setText(error);
             	}
             	
             } catch (SQLException e) {
@@ -0,0 +1,339 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * The TrigramIndex class answers the same substring queries as
+ * {@code text.toLowerCase(Locale.ROOT).contains(keyword.toLowerCase(Locale.ROOT))},
+ * without looking at every text. Each lower-cased text is split into its overlapping
+ * three-character sequences; a keyword can only occur in texts that contain
+ * all of its trigrams, so intersecting those posting lists leaves a handful of
+ * candidates, which are then checked with {@code contains}. Keywords shorter
+ * than three characters fall back to a scan.
+ *
+ * Entries are numbered in the order they are added and results come back in
+ * that order, so an index filled in list order returns matches in list order,
+ * exactly like a linear search.
+ *
+ * When a query leaves many texts to check (a short keyword on a large
+ * corpus, or very common trigrams), the checks are split into spliterator
+ * chunks and run on the common fork-join pool; an ordered stream puts the
+ * matches back in slot order, so the result is the same as sequentially.
+ *
+ * While the user types, each keyword usually extends the previous one, and
+ * every match must then also have matched before. The index remembers the
+ * slots of the last result and, until an entry changes, uses them as one more
+ * posting list (or, for short keywords, instead of checking every text), so
+ * the candidates shrink with each keystroke.
+ *
+ * Results of recent keywords are also kept in a {@link SearchCache}. Adding,
+ * changing or removing an entry drops only the cached keywords its old or new
+ * text contains.
+ *
+ * @param <T> the indexed entity type.
+ */
+public class TrigramIndex<T> {
+
+    private final Function<T, String> textOf;
+
+    private final TrigramMap postings = new TrigramMap();
+    private final Map<T, Integer> slots = new IdentityHashMap<>();
+    // Per slot: the entity and its lower-cased text; null once removed
+    private Object[] entities = new Object[16];
+    private String[] texts = new String[16];
+    private int nextSlot;
+    // Texts to check before search() goes parallel
+    private int parallelThreshold = Integer.MAX_VALUE;
+    // The last search, for narrowing; dropped whenever an entry is added, changed or removed
+    private String lastKeyword;
+    private int[] lastMatches;
+    private SearchCache cache = new SearchCache();
+
+    public TrigramIndex(Function<T, String> textOf) {
+        this.textOf = textOf;
+    }
+
+    // Three chars packed into one key
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    // The distinct trigrams of a text, sorted
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] keys = new long[text.length() - 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = trigram(text, i);
+        }
+        Arrays.sort(keys);
+        int distinct = 1;
+        for (int i = 1; i < keys.length; i++) {
+            if (keys[i] != keys[distinct - 1]) {
+                keys[distinct++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    // Adds an entity after everything indexed so far.
+    public synchronized void add(T entity) {
+        if (slots.containsKey(entity)) {
+            return;
+        }
+        if (nextSlot == entities.length) {
+            entities = Arrays.copyOf(entities, nextSlot * 2);
+            texts = Arrays.copyOf(texts, nextSlot * 2);
+        }
+        index(nextSlot++, entity);
+    }
+
+    private void index(int slot, T entity) {
+        lastMatches = null;
+        String text = textOf.apply(entity).toLowerCase(Locale.ROOT);
+        cache.invalidate(text);
+        entities[slot] = entity;
+        texts[slot] = text;
+        slots.put(entity, slot);
+        for (long key : trigrams(text)) {
+            postings.getOrCreate(key).add(slot);
+        }
+    }
+
+    public synchronized void remove(T entity) {
+        Integer slot = slots.get(entity);
+        if (slot != null) {
+            unindex(slot);
+        }
+    }
+
+    private void unindex(int slot) {
+        lastMatches = null;
+        cache.invalidate(texts[slot]);
+        for (long key : trigrams(texts[slot])) {
+            // Emptied lists stay in the map; they are dropped on the next rebuild
+            postings.get(key).remove(slot);
+        }
+        slots.remove(entities[slot]);
+        entities[slot] = null;
+        texts[slot] = null;
+    }
+
+    /**
+     * Re-indexes an entry whose text changed, or swaps in a different object
+     * for it, keeping its position in the result order.
+     *
+     * @param previous the object currently indexed.
+     * @param current  the object to index in its place (may be the same one).
+     */
+    public synchronized void replace(T previous, T current) {
+        Integer slot = slots.get(previous);
+        if (slot == null) {
+            add(current);
+            return;
+        }
+        unindex(slot);
+        index(slot, current);
+    }
+
+    // Rebuilds the index from scratch, in iteration order.
+    public synchronized void rebuild(Iterable<T> all) {
+        clear();
+        for (T entity : all) {
+            add(entity);
+        }
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        slots.clear();
+        entities = new Object[16];
+        texts = new String[16];
+        nextSlot = 0;
+        lastMatches = null;
+        cache.clear();
+    }
+
+    /**
+     * Finds the entries whose lower-cased text contains the lower-cased keyword.
+     *
+     * @param keyword the fragment to look for.
+     * @return the matching entities, in the order they were added.
+     */
+    public synchronized List<T> search(String keyword) {
+        CaseInsensitiveMatcher matcher = new CaseInsensitiveMatcher(keyword);
+        String lowerKeyword = matcher.getLowerKeyword();
+        // Cached results are exact: any change to a text containing the keyword dropped them
+        int[] matches = cache.get(lowerKeyword);
+        if (matches == null) {
+            matches = match(matcher);
+            cache.put(lowerKeyword, matches);
+        }
+        lastKeyword = lowerKeyword;
+        lastMatches = matches;
+        List<T> result = new ArrayList<>(matches.length);
+        for (int slot : matches) {
+            result.add(entity(slot));
+        }
+        return result;
+    }
+
+    private int[] match(CaseInsensitiveMatcher matcher) {
+        String lowerKeyword = matcher.getLowerKeyword();
+        // Matches of a keyword this one extends; none of the other texts can match
+        int[] previous = lastMatches != null && !lastKeyword.isEmpty() && lowerKeyword.contains(lastKeyword)
+                ? lastMatches : null;
+        if (lowerKeyword.length() < 3) {
+            // Too short to have a trigram: every live text is a candidate
+            return previous != null ? check(matcher, Arrays.stream(previous), previous.length)
+                    : check(matcher, IntStream.range(0, nextSlot).filter(slot -> texts[slot] != null), nextSlot);
+        }
+        return searchTrigrams(matcher, previous);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T entity(int slot) {
+        return (T) entities[slot];
+    }
+
+    private int[] searchTrigrams(CaseInsensitiveMatcher matcher, int[] previous) {
+        long[] keys = trigrams(matcher.getLowerKeyword());
+        PostingList[] lists = new PostingList[keys.length];
+        int n = 0;
+        for (long key : keys) {
+            PostingList list = postings.get(key);
+            if (list == null || list.isEmpty()) {
+                return new int[0];
+            }
+            lists[n++] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+        if (previous != null && previous.length < lists[0].size()) {
+            // Fewer previous matches than texts with the rarest trigram: re-checking them beats intersecting
+            return check(matcher, Arrays.stream(previous), previous.length);
+        }
+        int[] candidates = lists[0].toArray();
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = lists[i].retainIn(candidates, count);
+        }
+        // Having every trigram does not mean they are adjacent; confirm each candidate
+        return check(matcher, Arrays.stream(candidates, 0, count), count);
+    }
+
+    // The slots whose text contains the keyword, in slot order
+    private int[] check(CaseInsensitiveMatcher matcher, IntStream slots, int count) {
+        String[] texts = this.texts;
+        if (count >= parallelThreshold) {
+            slots = slots.parallel();
+        }
+        return slots.filter(slot -> matcher.matchesLowerCase(texts[slot])).toArray();
+    }
+
+    /**
+     * Sets how many texts a query must leave to check before they are checked
+     * in parallel. Below a few thousand, splitting costs more than it saves.
+     *
+     * @param parallelThreshold the number of texts; {@code Integer.MAX_VALUE} to stay sequential.
+     */
+    public synchronized void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 1.");
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public synchronized int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    // Whether this very object is indexed (by identity, like List.contains without equals), in constant time
+    public synchronized boolean contains(T entity) {
+        return slots.containsKey(entity);
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Replaces the result cache with an empty one of the given size.
+     *
+     * @param maxEntries the most keywords kept; 0 turns caching off.
+     */
+    public synchronized void setCacheSize(int maxEntries) {
+        cache = new SearchCache(maxEntries, SearchCache.DEFAULT_MAX_SLOTS);
+    }
+
+    // The cache behind search(), e.g. for its hit rate.
+    public synchronized SearchCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Open-addressing hash map from packed trigram to posting list. Keys are
+     * primitive longs, so indexing a text allocates nothing per trigram.
+     */
+    private static final class TrigramMap {
+
+        private long[] keys = new long[1024];
+        private PostingList[] values = new PostingList[1024];
+        private int size;
+
+        private int slotOf(long key) {
+            int mask = keys.length - 1;
+            int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        PostingList get(long key) {
+            return values[slotOf(key)];
+        }
+
+        PostingList getOrCreate(long key) {
+            int i = slotOf(key);
+            if (values[i] == null) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    i = slotOf(key);
+                }
+                keys[i] = key;
+                values[i] = new PostingList();
+                size++;
+            }
+            return values[i];
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            PostingList[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new PostingList[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    int j = slotOf(oldKeys[i]);
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                }
+            }
+        }
+
+        void clear() {
+            keys = new long[1024];
+            values = new PostingList[1024];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package application;
+
+import javafx.animation.PauseTransition;
+import javafx.geometry.Side;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The TypeAhead class adds search-as-you-type to a text field. On every
+ * keystroke it shows completions for the word being typed, which come from an
+ * in-memory trie and so appear in the same frame. The search itself only runs
+ * once typing pauses for {@link #DELAY_MILLIS}, and each keystroke supersedes
+ * the search before it: a search still waiting on the database is cancelled,
+ * and any late result can be recognised with {@link #isCurrent(int)}.
+ *
+ * All methods must be called on the JavaFX application thread.
+ */
+public class TypeAhead {
+
+    // Pause in typing before a search runs
+    public static final int DELAY_MILLIS = 200;
+
+    // Completions shown under the field
+    public static final int MAX_COMPLETIONS = 8;
+
+    private final TextField field;
+    private final Function<String, List<String>> completer;
+    private final ContextMenu completions = new ContextMenu();
+    private final PauseTransition pause = new PauseTransition(Duration.millis(DELAY_MILLIS));
+
+    // Bumped by every keystroke and every search; results of older generations are stale
+    private int generation;
+    private Future<?> pending;
+
+    /**
+     * @param field     the search field.
+     * @param completer completes a word prefix, e.g. Questions.completeWord.
+     * @param search    runs a search for the field's text once typing pauses.
+     */
+    public TypeAhead(TextField field, Function<String, List<String>> completer, Consumer<String> search) {
+        this.field = field;
+        this.completer = completer;
+        pause.setOnFinished(e -> search.accept(field.getText()));
+        field.textProperty().addListener((observable, previous, text) -> {
+            supersede();
+            showCompletions(text);
+            pause.playFromStart();
+        });
+    }
+
+    private void showCompletions(String text) {
+        String prefix = lastWord(text);
+        List<String> words = prefix.isEmpty() ? List.of() : completer.apply(prefix);
+        completions.getItems().clear();
+        for (String word : words) {
+            if (word.equalsIgnoreCase(prefix)) {
+                continue;
+            }
+            MenuItem item = new MenuItem(word);
+            item.setOnAction(e -> {
+                field.setText(text.substring(0, text.length() - prefix.length()) + word);
+                field.positionCaret(field.getText().length());
+            });
+            completions.getItems().add(item);
+        }
+        if (completions.getItems().isEmpty()) {
+            completions.hide();
+        } else if (!completions.isShowing() && field.getScene() != null) {
+            completions.show(field, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    // The letters and digits at the end of the text, i.e. the word being typed
+    private static String lastWord(String text) {
+        int start = text.length();
+        while (start > 0 && Character.isLetterOrDigit(text.charAt(start - 1))) {
+            start--;
+        }
+        return text.substring(start);
+    }
+
+    private void supersede() {
+        generation++;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    /**
+     * Starts a new search right away (e.g. from a Search button): the waiting
+     * one is dropped and earlier ones become stale.
+     *
+     * @return the generation to pass to {@link #isCurrent(int)} when the results arrive.
+     */
+    public int newSearch() {
+        pause.stop();
+        supersede();
+        return generation;
+    }
+
+    /**
+     * Remembers a search running in the background, so that the next keystroke
+     * or search cancels it.
+     */
+    public void track(Future<?> search) {
+        pending = search;
+    }
+
+    // Whether no keystroke or other search has happened since newSearch() returned this generation.
+    public boolean isCurrent(int generation) {
+        return generation == this.generation;
+    }
+}
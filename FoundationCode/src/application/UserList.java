@@ -65,7 +65,9 @@ package application;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import databasePart1.AsyncDatabaseHelper;
 import databasePart1.DatabaseHelper;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -108,12 +110,20 @@ public class UserList {
                     String newRole = roleInput.getText().trim();
                     if (!validRoles.contains(newRole)) {
                         showAlert("Invalid Role", "Valid roles: " + validRoles);
-                    } else if (databaseHelper.userHasRole(userName, newRole)) {
-                        showAlert("Error", userName + " already has the " + newRole + " role.");
-                    } else {
-                        databaseHelper.addUserRole(userName, newRole);
-                        showAlert("Success", newRole + " role added to " + userName);
+                        return;
                     }
+                    AsyncDatabaseHelper async = databaseHelper.async();
+                    async.userHasRole(userName, newRole).thenCompose(hasRole -> {
+                        if (hasRole) {
+                            showAlert("Error", userName + " already has the " + newRole + " role.");
+                            return CompletableFuture.<Void>completedFuture(null);
+                        }
+                        return async.addUserRole(userName, newRole)
+                                .thenRun(() -> showAlert("Success", newRole + " role added to " + userName));
+                    }).exceptionally(ex -> {
+                        showAlert("Error", "Database error: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+                        return null;
+                    });
                 });
 
                 // Remove role logic
@@ -121,14 +131,28 @@ public class UserList {
                     String removeRole = roleInput.getText().trim();
                     if (!validRoles.contains(removeRole)) {
                         showAlert("Invalid Role", "Valid roles: " + validRoles);
-                    } else if (!databaseHelper.userHasRole(userName, removeRole)) {
-                        showAlert("Error", userName + " does not have the " + removeRole + " role.");
-                    } else if (removeRole.equals("Admin") && databaseHelper.isLastAdmin(userName)) {
-                        showAlert("Error", "Cannot remove the last Admin!");
-                    } else {
-                        databaseHelper.removeUserRole(userName, removeRole);
-                        showAlert("Success", removeRole + " role removed from " + userName);
+                        return;
                     }
+                    AsyncDatabaseHelper async = databaseHelper.async();
+                    // The two checks are independent, so run them in parallel
+                    CompletableFuture<Boolean> hasRole = async.userHasRole(userName, removeRole);
+                    CompletableFuture<Boolean> lastAdmin = removeRole.equals("Admin")
+                            ? async.isLastAdmin(userName)
+                            : CompletableFuture.completedFuture(false);
+                    hasRole.thenCombine(lastAdmin, (has, last) -> {
+                        if (!has) {
+                            showAlert("Error", userName + " does not have the " + removeRole + " role.");
+                            return CompletableFuture.<Void>completedFuture(null);
+                        } else if (last) {
+                            showAlert("Error", "Cannot remove the last Admin!");
+                            return CompletableFuture.<Void>completedFuture(null);
+                        }
+                        return async.removeUserRole(userName, removeRole)
+                                .thenRun(() -> showAlert("Success", removeRole + " role removed from " + userName));
+                    }).thenCompose(step -> step).exceptionally(ex -> {
+                        showAlert("Error", "Database error: " + AsyncDatabaseHelper.rootCause(ex).getMessage());
+                        return null;
+                    });
                 });
 
                 // Layout for each user entry
@@ -7,9 +7,9 @@ import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import databasePart1.*;
 
@@ -42,11 +42,17 @@ public class UserLoginPage {
             String userName = userNameField.getText();
             String password = passwordField.getText();
 
-            try {
-                String role = databaseHelper.getUserRole(userName);
-                if (role != null) {
-                    User user = new User(userName, password, role);
-                    if (databaseHelper.login(user)) {
+            // Run the lookups off the UI thread; the callbacks come back on it
+            AsyncDatabaseHelper async = databaseHelper.async();
+            loginButton.setDisable(true);
+            async.getUserRole(userName).thenCompose(role -> {
+                if (role == null) {
+                    errorLabel.setText("User account doesn't exist");
+                    return CompletableFuture.<Void>completedFuture(null);
+                }
+                User user = new User(userName, password, role);
+                return async.login(user).thenAccept(loggedIn -> {
+                    if (loggedIn) {
                         List<String> roleList = Arrays.asList(role.split(","));
                         if (roleList.size() > 1) {
                             new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
@@ -56,13 +62,14 @@ public class UserLoginPage {
                     } else {
                         errorLabel.setText("Error logging in");
                     }
-                } else {
-                    errorLabel.setText("User account doesn't exist");
+                });
+            }).whenComplete((ignored, ex) -> {
+                loginButton.setDisable(false);
+                if (ex != null) {
+                    AsyncDatabaseHelper.rootCause(ex).printStackTrace();
+                    errorLabel.setText("Database error");
                 }
-            } catch (SQLException e) {
-                e.printStackTrace();
-                errorLabel.setText("Database error");
-            }
+            });
         });
 
         VBox layout = new VBox(10);
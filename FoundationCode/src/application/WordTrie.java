@@ -0,0 +1,226 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The WordTrie class holds a vocabulary as a prefix tree and finds the words
+ * within a small Levenshtein distance of a given one. It walks the tree depth
+ * first, computing one row of the edit-distance matrix per letter; words
+ * sharing a prefix share those rows, and a whole subtree is skipped as soon
+ * as every entry of the row exceeds the allowed distance, because adding
+ * letters can never bring the distance back down. For one or two edits this
+ * visits only a few levels below the root for most branches, instead of
+ * comparing the word with every word of the vocabulary.
+ *
+ * The same tree lists the words starting with a prefix, for completions.
+ *
+ * Not thread-safe; {@link InvertedIndex} calls it under its own lock.
+ */
+public class WordTrie {
+
+    private static final class Node {
+        // Children sorted by letter; null until the first one
+        char[] letters;
+        Node[] children;
+        int childCount;
+        boolean word;
+
+        Node child(char letter) {
+            int pos = childCount == 0 ? -1 : Arrays.binarySearch(letters, 0, childCount, letter);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        Node addChild(char letter) {
+            int pos = childCount == 0 ? -1 : Arrays.binarySearch(letters, 0, childCount, letter);
+            if (pos >= 0) {
+                return children[pos];
+            }
+            pos = -pos - 1;
+            if (children == null) {
+                letters = new char[2];
+                children = new Node[2];
+            } else if (childCount == children.length) {
+                letters = Arrays.copyOf(letters, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            System.arraycopy(letters, pos, letters, pos + 1, childCount - pos);
+            System.arraycopy(children, pos, children, pos + 1, childCount - pos);
+            letters[pos] = letter;
+            children[pos] = new Node();
+            childCount++;
+            return children[pos];
+        }
+
+        void removeChild(char letter) {
+            int pos = Arrays.binarySearch(letters, 0, childCount, letter);
+            System.arraycopy(letters, pos + 1, letters, pos, childCount - pos - 1);
+            System.arraycopy(children, pos + 1, children, pos, childCount - pos - 1);
+            children[--childCount] = null;
+        }
+    }
+
+    private final Node root = new Node();
+    private int size;
+
+    public void add(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.addChild(word.charAt(i));
+        }
+        if (!node.word) {
+            node.word = true;
+            size++;
+        }
+    }
+
+    public void remove(String word) {
+        Node[] path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            path[i + 1] = path[i].child(word.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        if (!path[word.length()].word) {
+            return;
+        }
+        path[word.length()].word = false;
+        size--;
+        // Drop the branch up to the last node still leading to another word
+        for (int i = word.length(); i > 0 && path[i].childCount == 0 && !path[i].word; i--) {
+            path[i - 1].removeChild(word.charAt(i - 1));
+        }
+    }
+
+    public boolean contains(String word) {
+        Node node = root;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = node.child(word.charAt(i));
+        }
+        return node != null && node.word;
+    }
+
+    public void clear() {
+        root.letters = null;
+        root.children = null;
+        root.childCount = 0;
+        root.word = false;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every word starting with a prefix (including the prefix itself if
+     * it is a word), in alphabetical order. Only the prefix's subtree is walked.
+     *
+     * @param prefix the prefix; empty for the whole vocabulary.
+     * @param action called once per word.
+     */
+    public void forEachWithPrefix(String prefix, Consumer<String> action) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, new StringBuilder(prefix), action);
+        }
+    }
+
+    private static void collect(Node node, StringBuilder word, Consumer<String> action) {
+        if (node.word) {
+            action.accept(word.toString());
+        }
+        for (int c = 0; c < node.childCount; c++) {
+            word.append(node.letters[c]);
+            collect(node.children[c], word, action);
+            word.setLength(word.length() - 1);
+        }
+    }
+
+    /**
+     * Finds the words closest to the given one, if any is close enough.
+     *
+     * @param word        the (possibly misspelled) word.
+     * @param maxDistance the largest edit distance to accept.
+     * @return every word at the smallest distance found, at most {@code maxDistance},
+     *         in alphabetical order; empty if none is that close.
+     */
+    public List<String> closest(String word, int maxDistance) {
+        // Most typos are one edit away, and a tight bound prunes far more, so widen step by step
+        List<String> result = List.of();
+        for (int distance = 0; distance <= maxDistance && result.isEmpty(); distance++) {
+            Search search = new Search(word, distance);
+            for (int j = 0; j <= word.length(); j++) {
+                search.rows[0][j] = j;
+            }
+            if (root.word && word.length() <= distance) {
+                search.found(0, word.length());
+            }
+            search.visit(root, 1);
+            result = search.result;
+        }
+        return result;
+    }
+
+    // State of one closest() walk: one matrix row per depth, and the best distance so far
+    private static final class Search {
+        final String word;
+        int best;
+        int[][] rows = new int[16][];
+        char[] path = new char[16];
+        final List<String> result = new ArrayList<>();
+
+        Search(String word, int maxDistance) {
+            this.word = word;
+            this.best = maxDistance;
+            rows[0] = new int[word.length() + 1];
+        }
+
+        void visit(Node node, int depth) {
+            if (depth == rows.length) {
+                rows = Arrays.copyOf(rows, depth * 2);
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            if (rows[depth] == null) {
+                rows[depth] = new int[word.length() + 1];
+            }
+            int[] previous = rows[depth - 1];
+            int[] row = rows[depth];
+            for (int c = 0; c < node.childCount; c++) {
+                char letter = node.letters[c];
+                row[0] = depth;
+                int rowMin = depth;
+                for (int j = 1; j <= word.length(); j++) {
+                    int cost = word.charAt(j - 1) == letter ? 0 : 1;
+                    row[j] = Math.min(Math.min(row[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+                    rowMin = Math.min(rowMin, row[j]);
+                }
+                // Longer words only add edits, so nothing below can be closer than the row's minimum
+                if (rowMin > best) {
+                    continue;
+                }
+                path[depth - 1] = letter;
+                Node child = node.children[c];
+                if (child.word && row[word.length()] <= best) {
+                    found(depth, row[word.length()]);
+                }
+                visit(child, depth + 1);
+            }
+        }
+
+        void found(int length, int distance) {
+            if (distance < best) {
+                result.clear();
+                best = distance;
+            }
+            result.add(new String(path, 0, length));
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import application.Answer;
+import application.Answers;
+import application.Page;
+import application.Question;
+import application.Questions;
+import application.User;
+import javafx.application.Platform;
+
+/**
+ * The AsyncDatabaseHelper class runs DatabaseHelper operations off the JavaFX
+ * application thread. Every call is executed on a virtual thread, at most
+ * {@code maxConcurrency} at a time, and the returned future is completed
+ * through {@link Platform#runLater(Runnable)}, so callbacks attached to it
+ * can touch UI controls directly.
+ *
+ * Independent calls can be issued together and combined, e.g.
+ * {@code userHasRole(...).thenCombine(isLastAdmin(...), ...)}.
+ */
+public class AsyncDatabaseHelper {
+
+	/**
+	 * A unit of database work run against the wrapped helper.
+	 */
+	@FunctionalInterface
+	public interface DatabaseCall<T> {
+		T call(DatabaseHelper databaseHelper) throws SQLException;
+	}
+
+	private final DatabaseHelper databaseHelper;
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+	private final Semaphore permits;
+	private final Executor callbackExecutor;
+
+	/**
+	 * Creates a helper whose results are delivered on the JavaFX application thread.
+	 *
+	 * @param databaseHelper the connected helper to run calls against.
+	 * @param maxConcurrency the most calls allowed to run at the same time.
+	 */
+	public AsyncDatabaseHelper(DatabaseHelper databaseHelper, int maxConcurrency) {
+		this(databaseHelper, maxConcurrency, Platform::runLater);
+	}
+
+	/**
+	 * Creates a helper that delivers results through the given executor. Use a
+	 * direct executor ({@code Runnable::run}) when no JavaFX toolkit is running,
+	 * for example in test automation.
+	 *
+	 * @param databaseHelper   the connected helper to run calls against.
+	 * @param maxConcurrency   the most calls allowed to run at the same time.
+	 * @param callbackExecutor where futures are completed.
+	 */
+	public AsyncDatabaseHelper(DatabaseHelper databaseHelper, int maxConcurrency, Executor callbackExecutor) {
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("Concurrency limit must be at least 1.");
+		}
+		this.databaseHelper = databaseHelper;
+		this.permits = new Semaphore(maxConcurrency);
+		this.callbackExecutor = callbackExecutor;
+	}
+
+	/**
+	 * Runs any database call asynchronously. Cancelling the future before the
+	 * call has started (e.g. a search superseded by the next keystroke) skips
+	 * the call altogether.
+	 *
+	 * @param call the work to run.
+	 * @return a future completed with the call's result (or failure) on the callback executor.
+	 */
+	public <T> CompletableFuture<T> submit(DatabaseCall<T> call) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		executor.execute(() -> {
+			T result = null;
+			Throwable failure = null;
+			try {
+				permits.acquire();
+				try {
+					if (!future.isCancelled()) {
+						result = call.call(databaseHelper);
+					}
+				} finally {
+					permits.release();
+				}
+			} catch (Throwable t) {
+				failure = t;
+			}
+			T value = result;
+			Throwable error = failure;
+			callbackExecutor.execute(() -> {
+				if (error != null) {
+					future.completeExceptionally(error);
+				} else {
+					future.complete(value);
+				}
+			});
+		});
+		return future;
+	}
+
+	// Stops accepting work; calls that are already running are allowed to finish.
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	// -------------------------------
+	// Users
+	// -------------------------------
+
+	public CompletableFuture<Boolean> isDatabaseEmpty() {
+		return submit(DatabaseHelper::isDatabaseEmpty);
+	}
+
+	public CompletableFuture<Void> register(User user) {
+		return submit(db -> {
+			db.register(user);
+			return null;
+		});
+	}
+
+	public CompletableFuture<Boolean> login(User user) {
+		return submit(db -> db.login(user));
+	}
+
+	public CompletableFuture<Void> deleteUser(String userName) {
+		return submit(db -> {
+			db.deleteUser(userName);
+			return null;
+		});
+	}
+
+	public CompletableFuture<ArrayList<String[]>> listUsers() {
+		return submit(DatabaseHelper::listUsers);
+	}
+
+	public CompletableFuture<Boolean> doesUserExist(String userName) {
+		return submit(db -> db.doesUserExist(userName));
+	}
+
+	public CompletableFuture<String> getUserRole(String userName) {
+		return submit(db -> db.getUserRole(userName));
+	}
+
+	public CompletableFuture<Boolean> userHasRole(String userName, String role) {
+		return submit(db -> db.userHasRole(userName, role));
+	}
+
+	public CompletableFuture<Void> addUserRole(String userName, String newRole) {
+		return submit(db -> {
+			db.addUserRole(userName, newRole);
+			return null;
+		});
+	}
+
+	public CompletableFuture<Void> removeUserRole(String userName, String removeRole) {
+		return submit(db -> {
+			db.removeUserRole(userName, removeRole);
+			return null;
+		});
+	}
+
+	public CompletableFuture<Boolean> isLastAdmin(String userName) {
+		return submit(db -> db.isLastAdmin(userName));
+	}
+
+	// -------------------------------
+	// Invitation codes and OTPs
+	// -------------------------------
+
+	public CompletableFuture<String> generateInvitationCode() {
+		return submit(DatabaseHelper::generateInvitationCode);
+	}
+
+	public CompletableFuture<Boolean> validateInvitationCode(String code) {
+		return submit(db -> db.validateInvitationCode(code));
+	}
+
+	public CompletableFuture<String> generateOTPCode(String userName) {
+		return submit(db -> db.generateOTPCode(userName));
+	}
+
+	public CompletableFuture<Boolean> validateOTP(String OTPass) {
+		return submit(db -> db.validateOTP(OTPass));
+	}
+
+	// -------------------------------
+	// Questions and Answers
+	// -------------------------------
+
+	public CompletableFuture<Question> createQuestion(Question question) {
+		return submit(db -> {
+			question.create(db);
+			return question;
+		});
+	}
+
+	public CompletableFuture<Question> readQuestion(int questionId) {
+		return submit(db -> Question.read(db, questionId));
+	}
+
+	public CompletableFuture<Question> updateQuestion(Question question, String newContent) {
+		return submit(db -> {
+			question.update(db, newContent);
+			return question;
+		});
+	}
+
+	public CompletableFuture<Void> deleteQuestion(Question question) {
+		return submit(db -> {
+			question.delete(db);
+			return null;
+		});
+	}
+
+	// Loads into a fresh Questions collection so the caller's list is never touched off the UI thread.
+	public CompletableFuture<Questions> loadAllQuestions() {
+		return submit(db -> {
+			Questions questions = new Questions();
+			questions.loadAllQuestions(db);
+			return questions;
+		});
+	}
+
+	// Every question as a read-only archive packed into a QuestionStore (see Questions.loadArchive).
+	public CompletableFuture<Questions> loadQuestionArchive(boolean offHeap) {
+		return submit(db -> Questions.loadArchive(db, offHeap));
+	}
+
+	// Keyset pagination; pass 0 for the first page, then the previous page's last id.
+	public CompletableFuture<Page<Question>> loadQuestionPage(int afterId, int pageSize) {
+		return submit(db -> new Questions().loadPage(db, afterId, pageSize));
+	}
+
+	/**
+	 * Pulls the changes since the last load or refresh into an existing
+	 * Questions list. Only the query runs in the background; the list is
+	 * patched on the callback executor (the UI thread), like every other result.
+	 *
+	 * @param questions the list to bring up to date.
+	 * @return a future completed with the number of questions added, replaced or removed.
+	 */
+	public CompletableFuture<Integer> refreshQuestions(Questions questions) {
+		return submit(questions::readChanges)
+				.thenApplyAsync(changes -> questions.applyChanges(databaseHelper, changes), callbackExecutor);
+	}
+
+	// Full-text search in the database; nothing is loaded into the client first.
+	public CompletableFuture<List<Question>> searchQuestionsInDatabase(String words) {
+		return submit(db -> Questions.searchDatabase(db, words, Questions.DATABASE_SEARCH_LIMIT));
+	}
+
+	public CompletableFuture<Answer> createAnswer(Answer answer) {
+		return submit(db -> {
+			answer.create(db);
+			return answer;
+		});
+	}
+
+	public CompletableFuture<Answer> readAnswer(int answerId) {
+		return submit(db -> Answer.read(db, answerId));
+	}
+
+	public CompletableFuture<Answer> updateAnswer(Answer answer, String newContent) {
+		return submit(db -> {
+			answer.update(db, newContent);
+			return answer;
+		});
+	}
+
+	public CompletableFuture<Void> deleteAnswer(Answer answer) {
+		return submit(db -> {
+			answer.delete(db);
+			return null;
+		});
+	}
+
+	// Loads into a fresh Answers collection so the caller's list is never touched off the UI thread.
+	public CompletableFuture<Answers> loadAllAnswers() {
+		return submit(db -> {
+			Answers answers = new Answers();
+			answers.loadAllAnswers(db);
+			return answers;
+		});
+	}
+
+	public CompletableFuture<Page<Answer>> loadAnswerPage(int afterId, int pageSize) {
+		return submit(db -> new Answers().loadPage(db, afterId, pageSize));
+	}
+
+	// Like refreshQuestions: read in the background, patched on the callback executor.
+	public CompletableFuture<Integer> refreshAnswers(Answers answers) {
+		return submit(answers::readChanges)
+				.thenApplyAsync(changes -> answers.applyChanges(databaseHelper, changes), callbackExecutor);
+	}
+
+	public CompletableFuture<List<Answer>> loadAnswersFor(int questionId) {
+		return submit(db -> Answers.loadAnswersFor(db, questionId));
+	}
+
+	// The answers to a whole page of questions in one query.
+	public CompletableFuture<Map<Integer, List<Answer>>> loadAnswersFor(Collection<Integer> questionIds) {
+		return submit(db -> Answers.loadAnswersFor(db, questionIds));
+	}
+
+	public CompletableFuture<List<Answer>> searchAnswersInDatabase(String words) {
+		return submit(db -> Answers.searchDatabase(db, words, Answers.DATABASE_SEARCH_LIMIT));
+	}
+
+	/**
+	 * Unwraps the CompletionException a future reports so callers can show the
+	 * original error message.
+	 *
+	 * @param failure the throwable passed to a whenComplete/exceptionally callback.
+	 * @return the underlying cause.
+	 */
+	public static Throwable rootCause(Throwable failure) {
+		Throwable cause = failure;
+		while (cause instanceof CompletionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+}
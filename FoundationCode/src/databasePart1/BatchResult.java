@@ -0,0 +1,45 @@
+package databasePart1;
+
+/**
+ * The BatchResult class reports the outcome of a batched insert: the
+ * generated ids in the same order as the input rows, and how long it took.
+ */
+public class BatchResult {
+
+	private final int[] generatedIds;
+	private final int chunks;
+	private final long elapsedNanos;
+
+	BatchResult(int[] generatedIds, int chunks, long elapsedNanos) {
+		this.generatedIds = generatedIds;
+		this.chunks = chunks;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public int[] getGeneratedIds() {
+		return generatedIds;
+	}
+
+	public int getRowCount() {
+		return generatedIds.length;
+	}
+
+	// Number of transactions the rows were committed in.
+	public int getChunks() {
+		return chunks;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0 : generatedIds.length * 1_000_000_000.0 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Inserted %d rows in %d chunks, %.1f ms (%.0f rows/s)", generatedIds.length, chunks,
+				elapsedNanos / 1_000_000.0, getRowsPerSecond());
+	}
+}
@@ -0,0 +1,432 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ConnectionPool class hands out JDBC connections from a bounded set of
+ * physical connections. Each call to {@link #borrow()} returns a connection
+ * handle; closing the handle returns the physical connection to the pool
+ * instead of closing it, so callers can keep using try-with-resources.
+ *
+ * Each physical connection also owns a {@link StatementCache}, so calling
+ * prepareStatement on a handle reuses an already prepared statement for the
+ * same SQL whenever possible.
+ */
+public class ConnectionPool {
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private final PoolConfig config;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition returned = lock.newCondition();
+	private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+	private int total;
+	private int waiters;
+	private boolean closed;
+
+	// Borrow metrics
+	private final LongAdder borrowCount = new LongAdder();
+	private final LongAdder borrowNanos = new LongAdder();
+	private final AtomicLong maxBorrowNanos = new AtomicLong();
+	private final LongAdder timeouts = new LongAdder();
+
+	// Prepared statement cache metrics, shared by the caches of every connection
+	private final LongAdder statementHits = new LongAdder();
+	private final LongAdder statementMisses = new LongAdder();
+
+	private final ScheduledExecutorService evictor;
+
+	public ConnectionPool(String url, String user, String password, PoolConfig config) throws SQLException {
+		if (config.getMinSize() > config.getMaxSize()) {
+			throw new IllegalArgumentException("Pool minimum size cannot exceed the maximum size.");
+		}
+		if (config.getEvictionIntervalMillis() <= 0) {
+			throw new IllegalArgumentException("Pool eviction interval must be at least 1 ms.");
+		}
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.config = config;
+
+		// Open the minimum number of connections up front so the first users don't pay for it
+		for (int i = 0; i < config.getMinSize(); i++) {
+			idle.push(new PooledConnection(DriverManager.getConnection(url, user, password)));
+			total++;
+		}
+
+		evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "cse360-pool-evictor");
+			t.setDaemon(true);
+			return t;
+		});
+		long interval = config.getEvictionIntervalMillis();
+		evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Borrows a connection from the pool, waiting up to the configured borrow
+	 * timeout if every connection is in use.
+	 *
+	 * @return a connection handle; close it to give the connection back.
+	 * @throws SQLException if the pool is closed, the wait times out, or a new
+	 *                      connection cannot be opened.
+	 */
+	public Connection borrow() throws SQLException {
+		long start = System.nanoTime();
+		long remaining = TimeUnit.MILLISECONDS.toNanos(config.getBorrowTimeoutMillis());
+		PooledConnection pooled = null;
+		boolean create = false;
+
+		lock.lock();
+		try {
+			while (pooled == null && !create) {
+				if (closed) {
+					throw new SQLException("Connection pool is closed.");
+				}
+				if (!idle.isEmpty()) {
+					pooled = idle.pop();
+				} else if (total < config.getMaxSize()) {
+					total++; // reserve the slot, the connection is opened outside the lock
+					create = true;
+				} else {
+					if (remaining <= 0) {
+						timeouts.increment();
+						throw new SQLException("Timed out waiting for a database connection after "
+								+ config.getBorrowTimeoutMillis() + " ms.");
+					}
+					waiters++;
+					try {
+						remaining = returned.awaitNanos(remaining);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SQLException("Interrupted while waiting for a database connection.", e);
+					} finally {
+						waiters--;
+					}
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		if (create) {
+			pooled = open();
+		} else if (config.isValidateOnBorrow() && !isUsable(pooled)) {
+			// The connection went bad while idle; its slot stays reserved for the fresh one, so no
+			// other borrower can take it in between and push the pool past its maximum
+			pooled.closeQuietly();
+			pooled = open();
+		}
+
+		recordBorrow(System.nanoTime() - start);
+		return pooled.newHandle();
+	}
+
+	// Opens a physical connection for a slot that has already been reserved.
+	private PooledConnection open() throws SQLException {
+		try {
+			return new PooledConnection(DriverManager.getConnection(url, user, password));
+		} catch (SQLException e) {
+			lock.lock();
+			try {
+				total--;
+				returned.signal();
+			} finally {
+				lock.unlock();
+			}
+			throw e;
+		}
+	}
+
+	private boolean isUsable(PooledConnection pooled) {
+		try {
+			return pooled.raw.isValid(config.getValidationTimeoutSeconds());
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void recordBorrow(long nanos) {
+		borrowCount.increment();
+		borrowNanos.add(nanos);
+		long max = maxBorrowNanos.get();
+		while (nanos > max && !maxBorrowNanos.compareAndSet(max, nanos)) {
+			max = maxBorrowNanos.get();
+		}
+	}
+
+	// Called when a handle is closed.
+	private void release(PooledConnection pooled) {
+		boolean healthy = reset(pooled);
+		lock.lock();
+		try {
+			if (closed || !healthy) {
+				total--;
+			} else {
+				pooled.lastReturned = System.nanoTime();
+				idle.push(pooled);
+			}
+			returned.signal();
+		} finally {
+			lock.unlock();
+		}
+		if (closed || !healthy) {
+			pooled.closeQuietly();
+		}
+	}
+
+	// Puts a connection back into its default state before another caller sees it.
+	private boolean reset(PooledConnection pooled) {
+		try {
+			if (pooled.raw.isClosed()) {
+				return false;
+			}
+			if (!pooled.raw.getAutoCommit()) {
+				pooled.raw.rollback();
+				pooled.raw.setAutoCommit(true);
+			}
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	// Closes connections that have been idle longer than the idle timeout, keeping the minimum size.
+	private void evictIdle() {
+		long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+		List<PooledConnection> evicted = new ArrayList<>();
+		lock.lock();
+		try {
+			// Oldest returns are at the tail of the deque
+			Iterator<PooledConnection> it = idle.descendingIterator();
+			while (it.hasNext() && total > config.getMinSize()) {
+				PooledConnection pooled = it.next();
+				if (pooled.lastReturned - cutoff > 0) {
+					break;
+				}
+				it.remove();
+				total--;
+				evicted.add(pooled);
+			}
+		} finally {
+			lock.unlock();
+		}
+		for (PooledConnection pooled : evicted) {
+			pooled.closeQuietly();
+		}
+	}
+
+	/**
+	 * Closes every idle connection and stops the pool. Connections that are still
+	 * borrowed are closed as soon as they are returned.
+	 */
+	public void close() {
+		List<PooledConnection> toClose;
+		lock.lock();
+		try {
+			closed = true;
+			toClose = new ArrayList<>(idle);
+			total -= idle.size();
+			idle.clear();
+			returned.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		evictor.shutdownNow();
+		for (PooledConnection pooled : toClose) {
+			pooled.closeQuietly();
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the pool metrics.
+	 *
+	 * @return the current pool statistics.
+	 */
+	public Stats getStats() {
+		lock.lock();
+		try {
+			long count = borrowCount.sum();
+			return new Stats(total - idle.size(), idle.size(), waiters, count,
+					count == 0 ? 0 : borrowNanos.sum() / count, maxBorrowNanos.get(), timeouts.sum(),
+					statementHits.sum(), statementMisses.sum());
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public PoolConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * A physical connection owned by the pool.
+	 */
+	private final class PooledConnection {
+		private final Connection raw;
+		private final StatementCache statements;
+		private long lastReturned = System.nanoTime();
+
+		PooledConnection(Connection raw) {
+			this.raw = raw;
+			this.statements = new StatementCache(raw, config.getStatementCacheSize(), statementHits,
+					statementMisses);
+		}
+
+		Connection newHandle() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new Handle(this));
+		}
+
+		void closeQuietly() {
+			statements.closeAll();
+			try {
+				raw.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Forwards calls to the physical connection until the handle is closed.
+	 */
+	private final class Handle implements InvocationHandler {
+		private PooledConnection pooled;
+
+		Handle(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				if (pooled != null) {
+					PooledConnection toRelease = pooled;
+					pooled = null;
+					release(toRelease);
+				}
+				return null;
+			case "isClosed":
+				return pooled == null || pooled.raw.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "PooledConnection[" + (pooled == null ? "returned" : pooled.raw) + "]";
+			default:
+				if (pooled == null) {
+					throw new SQLException("Connection has already been returned to the pool.");
+				}
+				if (method.getName().equals("prepareStatement") && isCacheable(args)) {
+					boolean generatedKeys = args.length == 2 && (Integer) args[1] == Statement.RETURN_GENERATED_KEYS;
+					return pooled.statements.prepare((String) args[0], generatedKeys, (Connection) proxy);
+				}
+				try {
+					return method.invoke(pooled.raw, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		}
+	}
+
+	// Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the cache
+	private static boolean isCacheable(Object[] args) {
+		return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+	}
+
+	/**
+	 * A point-in-time view of the pool metrics.
+	 */
+	public static final class Stats {
+		private final int active;
+		private final int idle;
+		private final int waiters;
+		private final long borrowCount;
+		private final long averageBorrowNanos;
+		private final long maxBorrowNanos;
+		private final long timeouts;
+		private final long statementCacheHits;
+		private final long statementCacheMisses;
+
+		Stats(int active, int idle, int waiters, long borrowCount, long averageBorrowNanos, long maxBorrowNanos,
+				long timeouts, long statementCacheHits, long statementCacheMisses) {
+			this.active = active;
+			this.idle = idle;
+			this.waiters = waiters;
+			this.borrowCount = borrowCount;
+			this.averageBorrowNanos = averageBorrowNanos;
+			this.maxBorrowNanos = maxBorrowNanos;
+			this.timeouts = timeouts;
+			this.statementCacheHits = statementCacheHits;
+			this.statementCacheMisses = statementCacheMisses;
+		}
+
+		public int getActive() {
+			return active;
+		}
+
+		public int getIdle() {
+			return idle;
+		}
+
+		public int getWaiters() {
+			return waiters;
+		}
+
+		public long getBorrowCount() {
+			return borrowCount;
+		}
+
+		public long getAverageBorrowNanos() {
+			return averageBorrowNanos;
+		}
+
+		public long getMaxBorrowNanos() {
+			return maxBorrowNanos;
+		}
+
+		public long getTimeouts() {
+			return timeouts;
+		}
+
+		public long getStatementCacheHits() {
+			return statementCacheHits;
+		}
+
+		public long getStatementCacheMisses() {
+			return statementCacheMisses;
+		}
+
+		@Override
+		public String toString() {
+			return "Pool [active=" + active + ", idle=" + idle + ", waiters=" + waiters + ", borrows=" + borrowCount
+					+ ", avgBorrowMicros=" + averageBorrowNanos / 1000 + ", maxBorrowMicros="
+					+ maxBorrowNanos / 1000 + ", timeouts=" + timeouts + ", statementCacheHits=" + statementCacheHits
+					+ ", statementCacheMisses=" + statementCacheMisses + "]";
+		}
+	}
+}
@@ -0,0 +1,369 @@
+package databasePart1;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * The DatabaseConfig class decides where and how the database is stored and
+ * builds the matching JDBC URL. Settings are read from a properties file
+ * ({@code cse360-db.properties} in the working directory, or the file named by
+ * {@code -Dcse360.db.config}), and any system property with the same key
+ * overrides the file. For example:
+ *
+ * <pre>
+ * cse360.db.mode=tuned
+ * cse360.db.cacheSizeKb=131072
+ * cse360.db.writeDelayMillis=2000
+ * cse360.pool.maxSize=20
+ * </pre>
+ */
+public class DatabaseConfig {
+
+	public static final String CONFIG_FILE_PROPERTY = "cse360.db.config";
+	public static final String DEFAULT_CONFIG_FILE = "cse360-db.properties";
+
+	private StorageMode mode = StorageMode.FILE;
+	private String name = "FoundationDatabase";
+	private String directory = "~";
+
+	// Settings used by the TUNED mode
+	private int cacheSizeKb = 64 * 1024;
+	private int writeDelayMillis = 1000;
+	private int pageSize = 16 * 1024;
+	private int maxInplaceLobBytes = 4 * 1024;
+	private boolean compress = false;
+
+	private PoolConfig poolConfig = new PoolConfig();
+
+	// Where Questions/Answers keyword searches run; DATABASE also keeps H2's full-text index on connect
+	private SearchBackend searchBackend = SearchBackend.LOCAL;
+	// Whether the apps hold every question and answer in memory so LOCAL search covers all of them;
+	// off, they only keep the page on screen and memory stays flat however large the tables get
+	private boolean searchLoadAll = false;
+	// With loadAll, QuestionsApp packs the questions into an off-heap QuestionStore archive instead:
+	// far less heap, but no word index, and it is reloaded rather than refreshed
+	private boolean searchArchive = false;
+
+	// inTransaction() retries after a lock timeout, deadlock or concurrent update
+	private int transactionMaxRetries = 3;
+	private int transactionRetryBackoffMillis = 10;
+
+	// How often the per-query metrics table is printed, 0 turns it off
+	private int metricsDumpSeconds = 0;
+
+	// EntityCache limits for Question.read/Answer.read; 0 entries turns it off
+	private int entityCacheMaxEntries = 10_000;
+	private int entityCacheMaxBytes = 16 * 1024 * 1024;
+	private int entityCacheTtlMillis = 60_000;
+
+	// Slow query log, a threshold of 0 turns it off
+	private int slowQueryThresholdMillis = 250;
+	// EXPLAIN ANALYZE runs a slow SELECT again on the caller's connection, so it is opt-in
+	private boolean slowQueryExplainAnalyze = false;
+	private String slowQueryFile = "slow-queries.log";
+	private int slowQueryMaxFileBytes = 5 * 1024 * 1024;
+	private int slowQueryMaxBackups = 3;
+
+	/**
+	 * Loads the configuration from the config file (if present) and system
+	 * properties.
+	 *
+	 * @return the resolved configuration.
+	 */
+	public static DatabaseConfig load() {
+		Properties properties = new Properties();
+		Path file = Paths.get(System.getProperty(CONFIG_FILE_PROPERTY, DEFAULT_CONFIG_FILE));
+		if (Files.isRegularFile(file)) {
+			try (InputStream in = Files.newInputStream(file)) {
+				properties.load(in);
+			} catch (IOException e) {
+				System.err.println("Could not read database config " + file + ": " + e.getMessage());
+			}
+		}
+		// System properties win over the file
+		for (String key : System.getProperties().stringPropertyNames()) {
+			if (key.startsWith("cse360.")) {
+				properties.setProperty(key, System.getProperty(key));
+			}
+		}
+		return fromProperties(properties);
+	}
+
+	// Builds a configuration from cse360.db.* and cse360.pool.* keys.
+	public static DatabaseConfig fromProperties(Properties properties) {
+		DatabaseConfig config = new DatabaseConfig();
+		String mode = properties.getProperty("cse360.db.mode");
+		if (mode != null) {
+			config.setMode(StorageMode.parse(mode));
+		}
+		config.setName(properties.getProperty("cse360.db.name", config.name));
+		config.setDirectory(properties.getProperty("cse360.db.directory", config.directory));
+		config.setCacheSizeKb(intValue(properties, "cse360.db.cacheSizeKb", config.cacheSizeKb));
+		config.setWriteDelayMillis(intValue(properties, "cse360.db.writeDelayMillis", config.writeDelayMillis));
+		config.setPageSize(intValue(properties, "cse360.db.pageSize", config.pageSize));
+		config.setMaxInplaceLobBytes(intValue(properties, "cse360.db.maxInplaceLobBytes", config.maxInplaceLobBytes));
+		config.setCompress(Boolean.parseBoolean(properties.getProperty("cse360.db.compress", "false")));
+		config.setPoolConfig(PoolConfig.fromProperties(properties));
+		String searchBackend = properties.getProperty("cse360.search.backend");
+		if (searchBackend != null) {
+			config.setSearchBackend(SearchBackend.parse(searchBackend));
+		}
+		config.setSearchLoadAll(Boolean.parseBoolean(properties.getProperty("cse360.search.loadAll", "false")));
+		config.setSearchArchive(Boolean.parseBoolean(properties.getProperty("cse360.search.archive", "false")));
+		config.setTransactionMaxRetries(intValue(properties, "cse360.tx.maxRetries", config.transactionMaxRetries));
+		config.setTransactionRetryBackoffMillis(
+				intValue(properties, "cse360.tx.retryBackoffMillis", config.transactionRetryBackoffMillis));
+		config.setMetricsDumpSeconds(intValue(properties, "cse360.metrics.dumpIntervalSeconds", 0));
+		config.setEntityCacheMaxEntries(
+				intValue(properties, "cse360.entityCache.maxEntries", config.entityCacheMaxEntries));
+		config.setEntityCacheMaxBytes(intValue(properties, "cse360.entityCache.maxBytes", config.entityCacheMaxBytes));
+		config.setEntityCacheTtlMillis(
+				intValue(properties, "cse360.entityCache.ttlMillis", config.entityCacheTtlMillis));
+		config.setSlowQueryThresholdMillis(
+				intValue(properties, "cse360.slowlog.thresholdMillis", config.slowQueryThresholdMillis));
+		config.setSlowQueryExplainAnalyze(
+				Boolean.parseBoolean(properties.getProperty("cse360.slowlog.explainAnalyze", "false")));
+		config.setSlowQueryFile(properties.getProperty("cse360.slowlog.file", config.slowQueryFile));
+		config.setSlowQueryMaxFileBytes(
+				intValue(properties, "cse360.slowlog.maxFileBytes", config.slowQueryMaxFileBytes));
+		config.setSlowQueryMaxBackups(intValue(properties, "cse360.slowlog.maxBackups", config.slowQueryMaxBackups));
+		return config;
+	}
+
+	// Shortcut for an in-memory database, e.g. DatabaseConfig.inMemory("benchmark").
+	public static DatabaseConfig inMemory(String name) {
+		DatabaseConfig config = new DatabaseConfig();
+		config.setMode(StorageMode.MEMORY);
+		config.setName(name);
+		return config;
+	}
+
+	static int intValue(Properties properties, String key, int defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+		}
+	}
+
+	/**
+	 * Builds the JDBC URL for the configured storage mode.
+	 *
+	 * @return the H2 connection URL.
+	 */
+	public String getUrl() {
+		switch (mode) {
+		case MEMORY:
+			// DB_CLOSE_DELAY=-1 keeps the database alive between pooled connections
+			return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+		case TUNED:
+			return "jdbc:h2:" + directory + "/" + name
+					+ ";CACHE_SIZE=" + cacheSizeKb
+					+ ";WRITE_DELAY=" + writeDelayMillis
+					+ ";PAGE_SIZE=" + pageSize
+					+ ";MAX_LENGTH_INPLACE_LOB=" + maxInplaceLobBytes
+					+ (compress ? ";COMPRESS=TRUE" : "");
+		case FILE:
+		default:
+			return "jdbc:h2:" + directory + "/" + name;
+		}
+	}
+
+	public StorageMode getMode() {
+		return mode;
+	}
+
+	public void setMode(StorageMode mode) {
+		this.mode = mode;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public int getCacheSizeKb() {
+		return cacheSizeKb;
+	}
+
+	public void setCacheSizeKb(int cacheSizeKb) {
+		this.cacheSizeKb = cacheSizeKb;
+	}
+
+	public int getWriteDelayMillis() {
+		return writeDelayMillis;
+	}
+
+	public void setWriteDelayMillis(int writeDelayMillis) {
+		this.writeDelayMillis = writeDelayMillis;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	// Only takes effect when the database file is first created.
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	public int getMaxInplaceLobBytes() {
+		return maxInplaceLobBytes;
+	}
+
+	public void setMaxInplaceLobBytes(int maxInplaceLobBytes) {
+		this.maxInplaceLobBytes = maxInplaceLobBytes;
+	}
+
+	public boolean isCompress() {
+		return compress;
+	}
+
+	public void setCompress(boolean compress) {
+		this.compress = compress;
+	}
+
+	public PoolConfig getPoolConfig() {
+		return poolConfig;
+	}
+
+	public void setPoolConfig(PoolConfig poolConfig) {
+		this.poolConfig = poolConfig;
+	}
+
+	public SearchBackend getSearchBackend() {
+		return searchBackend;
+	}
+
+	public void setSearchBackend(SearchBackend searchBackend) {
+		this.searchBackend = searchBackend;
+	}
+
+	public boolean isSearchLoadAll() {
+		return searchLoadAll;
+	}
+
+	public void setSearchLoadAll(boolean searchLoadAll) {
+		this.searchLoadAll = searchLoadAll;
+	}
+
+	public boolean isSearchArchive() {
+		return searchArchive;
+	}
+
+	public void setSearchArchive(boolean searchArchive) {
+		this.searchArchive = searchArchive;
+	}
+
+	public int getTransactionMaxRetries() {
+		return transactionMaxRetries;
+	}
+
+	public void setTransactionMaxRetries(int transactionMaxRetries) {
+		this.transactionMaxRetries = transactionMaxRetries;
+	}
+
+	public int getTransactionRetryBackoffMillis() {
+		return transactionRetryBackoffMillis;
+	}
+
+	public void setTransactionRetryBackoffMillis(int transactionRetryBackoffMillis) {
+		this.transactionRetryBackoffMillis = transactionRetryBackoffMillis;
+	}
+
+	public int getMetricsDumpSeconds() {
+		return metricsDumpSeconds;
+	}
+
+	public void setMetricsDumpSeconds(int metricsDumpSeconds) {
+		this.metricsDumpSeconds = metricsDumpSeconds;
+	}
+
+	public int getEntityCacheMaxEntries() {
+		return entityCacheMaxEntries;
+	}
+
+	public void setEntityCacheMaxEntries(int entityCacheMaxEntries) {
+		this.entityCacheMaxEntries = entityCacheMaxEntries;
+	}
+
+	public int getEntityCacheMaxBytes() {
+		return entityCacheMaxBytes;
+	}
+
+	public void setEntityCacheMaxBytes(int entityCacheMaxBytes) {
+		this.entityCacheMaxBytes = entityCacheMaxBytes;
+	}
+
+	public int getEntityCacheTtlMillis() {
+		return entityCacheTtlMillis;
+	}
+
+	public void setEntityCacheTtlMillis(int entityCacheTtlMillis) {
+		this.entityCacheTtlMillis = entityCacheTtlMillis;
+	}
+
+	public int getSlowQueryThresholdMillis() {
+		return slowQueryThresholdMillis;
+	}
+
+	public void setSlowQueryThresholdMillis(int slowQueryThresholdMillis) {
+		this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+	}
+
+	public boolean isSlowQueryExplainAnalyze() {
+		return slowQueryExplainAnalyze;
+	}
+
+	public void setSlowQueryExplainAnalyze(boolean slowQueryExplainAnalyze) {
+		this.slowQueryExplainAnalyze = slowQueryExplainAnalyze;
+	}
+
+	public String getSlowQueryFile() {
+		return slowQueryFile;
+	}
+
+	public void setSlowQueryFile(String slowQueryFile) {
+		this.slowQueryFile = slowQueryFile;
+	}
+
+	public int getSlowQueryMaxFileBytes() {
+		return slowQueryMaxFileBytes;
+	}
+
+	public void setSlowQueryMaxFileBytes(int slowQueryMaxFileBytes) {
+		this.slowQueryMaxFileBytes = slowQueryMaxFileBytes;
+	}
+
+	public int getSlowQueryMaxBackups() {
+		return slowQueryMaxBackups;
+	}
+
+	public void setSlowQueryMaxBackups(int slowQueryMaxBackups) {
+		this.slowQueryMaxBackups = slowQueryMaxBackups;
+	}
+
+	@Override
+	public String toString() {
+		return "DatabaseConfig [mode=" + mode + ", url=" + getUrl() + ", " + poolConfig + "]";
+	}
+}
@@ -2,14 +2,24 @@ package databasePart1;
 
 import java.sql.*;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
-
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import application.Answer;
+import application.Question;
 import application.User;
 
 /**
@@ -19,99 +29,132 @@ import application.User;
  */
 public class DatabaseHelper {
 
-	// JDBC driver name and database URL
+	// JDBC driver name (the database URL comes from DatabaseConfig)
 	static final String JDBC_DRIVER = "org.h2.Driver";
-	static final String DB_URL = "jdbc:h2:~/FoundationDatabase";
 
 	// Database credentials
 	static final String USER = "sa";
 	static final String PASS = "";
 
-	private Connection connection = null;
-	private Statement statement = null;
-	// PreparedStatement pstmt
+	private final DatabaseConfig config;
+
+	// Every operation borrows its own connection from the pool and returns it when done
+	private ConnectionPool pool = null;
+	private AsyncDatabaseHelper async = null;
+
+	// Change notifications for loaded Questions/Answers collections
+	private final EntityEvents<Question> questionEvents = new EntityEvents<>();
+	private final EntityEvents<Answer> answerEvents = new EntityEvents<>();
+
+	// The unit of work running on the current thread, if any
+	private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+
+	// Recently read entities, shared by everything using this helper
+	private final EntityCache<Question> questionCache;
+	private final EntityCache<Answer> answerCache;
+	// Held here because EntityEvents keeps listeners weakly
+	private final EntityListener<Question> questionCacheInvalidator;
+	private final EntityListener<Answer> answerCacheInvalidator;
+
+	// Uses the storage mode from cse360-db.properties / -Dcse360.db.* (a plain file database by default)
+	public DatabaseHelper() {
+		this(DatabaseConfig.load());
+	}
+
+	// Uses an explicit configuration, e.g. DatabaseConfig.inMemory("tests")
+	public DatabaseHelper(DatabaseConfig config) {
+		this.config = config;
+		// Rough heap cost: object headers and fields plus two bytes per character
+		questionCache = new EntityCache<>("questions", config.getEntityCacheMaxEntries(),
+				config.getEntityCacheMaxBytes(), config.getEntityCacheTtlMillis(),
+				q -> new Question(q.getId(), q.getContent()), q -> 64 + 2L * q.getContent().length());
+		answerCache = new EntityCache<>("answers", config.getEntityCacheMaxEntries(),
+				config.getEntityCacheMaxBytes(), config.getEntityCacheTtlMillis(),
+				a -> new Answer(a.getId(), a.getQuestionId(), a.getContent()), a -> 72 + 2L * a.getContent().length());
+		questionCacheInvalidator = new CacheInvalidator<>(questionCache, Question::getId);
+		answerCacheInvalidator = new CacheInvalidator<>(answerCache, Answer::getId);
+		questionEvents.addListener(questionCacheInvalidator);
+		answerEvents.addListener(answerCacheInvalidator);
+	}
+
+	/**
+	 * Keeps an entity cache in step with writes made through this helper. Events
+	 * arrive after the commit; a read of the old row that started before then
+	 * cannot fill the cache, because the invalidation bumps its stamp.
+	 */
+	private static final class CacheInvalidator<T> implements EntityListener<T> {
+
+		private final EntityCache<T> cache;
+		private final ToIntFunction<T> idOf;
+
+		CacheInvalidator(EntityCache<T> cache, ToIntFunction<T> idOf) {
+			this.cache = cache;
+			this.idOf = idOf;
+		}
+
+		@Override
+		public void updated(T entity) {
+			cache.invalidate(idOf.applyAsInt(entity));
+		}
+
+		@Override
+		public void deleted(T entity) {
+			cache.invalidate(idOf.applyAsInt(entity));
+		}
+	}
 
 	public void connectToDatabase() throws SQLException {
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
-			System.out.println("Connecting to database...");
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-			statement = connection.createStatement();
-			// You can use this command to clear the database and restart from fresh.
-			// statement.execute("DROP ALL OBJECTS");
-
-			createTables(); // Create the necessary tables if they don't exist
+			System.out.println("Connecting to database (" + config.getMode() + ")...");
+			pool = new ConnectionPool(config.getUrl(), USER, PASS, config.getPoolConfig());
+			QueryMetrics.registerMBeans();
+			SlowQueryLog.configure(config);
+			if (config.getMetricsDumpSeconds() > 0) {
+				QueryMetrics.startPeriodicDump(config.getMetricsDumpSeconds(), System.out);
+			}
+			try (Connection connection = getConnection()) {
+				// You can use this command to clear the database and restart from fresh.
+				// connection.createStatement().execute("DROP ALL OBJECTS");
+
+				// Bring the schema up to date; a no-op when it already is
+				int migrations = SchemaMigrator.migrate(connection, config.getUrl());
+				// The full-text index only exists while the DATABASE search backend is configured
+				SchemaMigrator.syncFullTextIndex(connection, config.getSearchBackend(), migrations > 0);
+			}
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
 	}
 
-	private void createTables() throws SQLException {
-		String userTable = "CREATE TABLE IF NOT EXISTS cse360users (" + "id INT AUTO_INCREMENT PRIMARY KEY, "
-				+ "userName VARCHAR(255) UNIQUE, " + "password VARCHAR(255), " + "role VARCHAR(20), "
-				+ "OTP VARCHAR(10), " + "isUSED BOOLEAN DEFAULT TRUE)";
-		statement.execute(userTable);
-
-		// Now ensure the new columns exist too
-		// (H2 allows "IF NOT EXISTS" with ADD COLUMN, which helps avoid errors if it
-		// already exists)
-		String addOtpColumn = "ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS OTP VARCHAR(10)";
-		String addIsUsedColumn = "ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS isUSED BOOLEAN DEFAULT TRUE";
-		statement.execute(addOtpColumn);
-		statement.execute(addIsUsedColumn);
-
-		// Create the invitation codes table
-		// Columns Added:
-		// - Get the time when the code is first created
-		// - Expires column to ensure the code is used within a certain amount of time
-		String invitationCodesTable = "CREATE TABLE IF NOT EXISTS InvitationCodes (" + "code VARCHAR(10) PRIMARY KEY, "
-				+ "isUsed BOOLEAN DEFAULT FALSE, " + "startTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
-				+ "expires TIMESTAMP)";
-		statement.execute(invitationCodesTable);
-
-		// Add new columns if not present
-		statement.execute(
-				"ALTER TABLE InvitationCodes ADD COLUMN IF NOT EXISTS startTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP");
-		statement.execute("ALTER TABLE InvitationCodes ADD COLUMN IF NOT EXISTS expires TIMESTAMP");
-		
-		//create answer table
-		String answersTable = "CREATE TABLE IF NOT EXISTS Answers (" +
-                "id INT AUTO_INCREMENT PRIMARY KEY, " +
-                "questionId INT, " +
-                "content VARCHAR(255) NOT NULL)";
-        statement.execute(answersTable);
-
-        //Create question table
-		String questionsTable = "CREATE TABLE IF NOT EXISTS Questions (" + "id INT AUTO_INCREMENT PRIMARY KEY, "
-				+ "content VARCHAR(255) NOT NULL)";
-		statement.execute(questionsTable);
-
-	}
-
 	// Check if the database is empty
 	public boolean isDatabaseEmpty() throws SQLException {
-		String query = "SELECT COUNT(*) AS count FROM cse360users";
-		ResultSet resultSet = statement.executeQuery(query);
-		if (resultSet.next()) {
-			return resultSet.getInt("count") == 0;
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.COUNT_USERS.prepare(connection);
+				ResultSet resultSet = pstmt.executeQuery()) {
+			if (resultSet.next()) {
+				return resultSet.getInt("count") == 0;
+			}
 		}
 		return true;
 	}
 
 	// Check if OTP is empty
 	public boolean isOTPDatabaseEmpty() throws SQLException {
-		String query = "SELECT COUNT(*) AS count FROM One_Time_Passwords";
-		ResultSet resultSet = statement.executeQuery(query);
-		if (resultSet.next()) {
-			return resultSet.getInt("count") == 0;
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.COUNT_OTP.prepare(connection);
+				ResultSet resultSet = pstmt.executeQuery()) {
+			if (resultSet.next()) {
+				return resultSet.getInt("count") == 0;
+			}
 		}
 		return true;
 	}
 
 	// Registers a new user in the database.
 	public void register(User user) throws SQLException {
-		String insertUser = "INSERT INTO cse360users (userName, password, role) VALUES (?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.REGISTER_USER.prepare(connection)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			pstmt.setString(3, user.getRole());
@@ -119,45 +162,65 @@ public class DatabaseHelper {
 		}
 	}
 
-	// Validates a user's login credentials.
+	// Validates a user's login credentials. The password field may also hold a
+	// pending one-time password, which is consumed by the same statement that checks it.
 	public boolean login(User user) throws SQLException {
-		String query = "SELECT * FROM cse360users WHERE userName = ? AND (password = ? OR (OTP IS NOT NULL AND isUsed = FALSE)) AND role = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		boolean passwordMatches;
+		boolean pendingOTP = false;
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.LOGIN.prepare(connection)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			pstmt.setString(3, user.getRole());
 			try (ResultSet rs = pstmt.executeQuery()) {
-				if (rs.next()) {
-					String OTPass = rs.getString("OTP");
-					boolean used = rs.getBoolean("isUsed");
-					if (OTPass != null && !used) {
-						validateOTP(OTPass);
-					}
-
-					return true;
+				passwordMatches = rs.next();
+				if (passwordMatches) {
+					pendingOTP = rs.getString("OTP") != null && !rs.getBoolean("isUSED");
 				}
 			}
 		}
-		return false;
+		// Both follow-up statements run after our connection has gone back to the pool
+		if (!passwordMatches) {
+			return redeemOTP(user);
+		}
+		if (pendingOTP) {
+			// Logging in with the real password invalidates an outstanding OTP
+			try (Connection connection = getConnection();
+					PreparedStatement pstmt = NamedQuery.CLEAR_OTP.prepare(connection)) {
+				pstmt.setString(1, user.getUserName());
+				pstmt.executeUpdate();
+			}
+		}
+		return true;
+	}
+
+	private boolean redeemOTP(User user) throws SQLException {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.REDEEM_OTP_LOGIN.prepare(connection)) {
+			pstmt.setString(1, user.getUserName());
+			pstmt.setString(2, user.getPassword());
+			pstmt.setString(3, user.getRole());
+			return pstmt.executeUpdate() == 1;
+		}
 	}
 
 	// Deletes a user from database
 	public void deleteUser(String userName) {
-		String query = "DELETE FROM cse360users WHERE username = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.DELETE_USER.prepare(connection)) {
 			pstmt.setString(1, userName);
 			pstmt.executeUpdate();
 
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 	}
 
 	// Lists all users in database
 	public ArrayList<String[]> listUsers() {
-		String query = "SELECT userName, role FROM cse360users";
 		ArrayList<String[]> returnList = new ArrayList<>();
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.LIST_USERS.prepare(connection)) {
 			ResultSet rs = pstmt.executeQuery();
 			while (rs.next()) {
 				String user = rs.getString("userName");
@@ -168,15 +231,15 @@ public class DatabaseHelper {
 			return returnList;
 
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 			return null;
 		}
 	}
 
 	// Checks if a user already exists in the database based on their userName.
 	public boolean doesUserExist(String userName) {
-		String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.USER_EXISTS.prepare(connection)) {
 
 			pstmt.setString(1, userName);
 			ResultSet rs = pstmt.executeQuery();
@@ -186,15 +249,15 @@ public class DatabaseHelper {
 				return rs.getInt(1) > 0;
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 		return false; // If an error occurs, assume user doesn't exist
 	}
 
 	// Retrieves the role of a user from the database using their UserName.
 	public String getUserRole(String userName) {
-		String query = "SELECT role FROM cse360users WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.GET_USER_ROLE.prepare(connection)) {
 			pstmt.setString(1, userName);
 			ResultSet rs = pstmt.executeQuery();
 
@@ -202,7 +265,7 @@ public class DatabaseHelper {
 				return rs.getString("role"); // Return the role if user exists
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 		return null; // If no user exists or an error occurs
 	}
@@ -210,107 +273,67 @@ public class DatabaseHelper {
 	// Generates a new invitation code and inserts it into the database.
 	public String generateInvitationCode() {
 		String code = UUID.randomUUID().toString().substring(0, 4); // Generate a random 4-character code
-		// QUERY ADDED:
-		// - Added the current time through CURRENT_TIMESTAMP
-		// - USED DATE_ADD to add 5 minutes to current time for expired time
-		String query = "INSERT INTO InvitationCodes (code, startTime, expires) VALUES (?, CURRENT_TIMESTAMP, DATEADD(MINUTE, 5, CURRENT_TIMESTAMP))";
-
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.INSERT_INVITATION_CODE.prepare(connection)) {
 			pstmt.setString(1, code);
 			pstmt.executeUpdate();
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 
 		return code;
 	}
 
-	// Validates an invitation code to check if it is unused.
+	// Redeems an invitation code if it is unused and not expired. The check and
+	// the update are one statement, so concurrent sign-ups cannot both use a code.
 	public boolean validateInvitationCode(String code) {
-		String query = "SELECT * FROM InvitationCodes WHERE code = ? AND isUsed = FALSE AND expires > CURRENT_TIMESTAMP";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.REDEEM_INVITATION_CODE.prepare(connection)) {
 			pstmt.setString(1, code);
-			ResultSet rs = pstmt.executeQuery();
-			if (rs.next()) {
-				// Mark the code as used
-				markInvitationCodeAsUsed(code);
-				return true;
-			}
+			return pstmt.executeUpdate() == 1;
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 		return false;
 	}
 
-	// Marks the invitation code as used in the database.
-	private void markInvitationCodeAsUsed(String code) {
-		String query = "UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, code);
-			pstmt.executeUpdate();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
-	}
-
 	// Generates a new OTP code and inserts it into the database.
 	public String generateOTPCode(String username) {
 		String OTPass = UUID.randomUUID().toString().substring(0, 8); // Generate a random 4-character code
-		String query = "UPDATE cse360users SET OTP = ?, isUSED = FALSE WHERE userName = ?";
 
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.SET_OTP.prepare(connection)) {
 			pstmt.setString(1, OTPass);
 			pstmt.setString(2, username);
 			pstmt.executeUpdate();
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 
 		return OTPass;
 	}
 
-	// Validates an invitation code to check if it is unused.
+	// Redeems a one-time password if it has not been used yet, atomically.
 	public boolean validateOTP(String OTPass) {
-		String query = "SELECT * FROM cse360users WHERE OTP = ? AND isUSED = FALSE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.REDEEM_OTP.prepare(connection)) {
 			pstmt.setString(1, OTPass);
-			ResultSet rs = pstmt.executeQuery();
-			if (rs.next()) {
-				// Mark the code as used
-				String UName = rs.getString("userName");
-				OTPNotEmpty(UName);
-				return true;
-			}
+			return pstmt.executeUpdate() > 0;
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 		return false;
 	}
 
-	// Marks the invitation code as used in the database.
-	private void OTPNotEmpty(String userName) {
-		String query = "UPDATE cse360users SET OTP = NULL, isUSED = TRUE where userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, userName);
-			pstmt.executeUpdate();
-		} catch (SQLException e) {
-			e.printStackTrace();
-		}
-	}
-
-	// Closes the database connection and statement.
+	// Closes the connection pool and every connection it holds.
 	public void closeConnection() {
-		try {
-			if (statement != null)
-				statement.close();
-		} catch (SQLException se2) {
-			se2.printStackTrace();
+		if (async != null) {
+			async.shutdown();
+			async = null;
 		}
-		try {
-			if (connection != null)
-				connection.close();
-		} catch (SQLException se) {
-			se.printStackTrace();
+		if (pool != null) {
+			pool.close();
+			pool = null;
 		}
 	}
 
@@ -318,8 +341,8 @@ public class DatabaseHelper {
 
 	// Checks if the user has a specific role
 	public boolean userHasRole(String userName, String role) {
-		String query = "SELECT role FROM cse360users WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.GET_USER_ROLE.prepare(connection)) {
 			pstmt.setString(1, userName);
 			ResultSet rs = pstmt.executeQuery();
 			if (rs.next()) {
@@ -327,57 +350,497 @@ public class DatabaseHelper {
 				return roles.contains(role);
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 		return false;
 	}
 
-	// Adds a role to a user
+	// Adds a role to a user. The read and the update form one transaction so a
+	// concurrent role change cannot be lost.
 	public void addUserRole(String userName, String newRole) {
-		String query = "UPDATE cse360users SET role = ? WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			String existingRoles = getUserRole(userName);
-			String updatedRoles = existingRoles.isEmpty() ? newRole : existingRoles + "," + newRole;
-			pstmt.setString(1, updatedRoles);
-			pstmt.setString(2, userName);
-			pstmt.executeUpdate();
+		try {
+			inTransaction(Connection.TRANSACTION_REPEATABLE_READ, db -> {
+				String existingRoles = getUserRole(userName);
+				String updatedRoles = existingRoles.isEmpty() ? newRole : existingRoles + "," + newRole;
+				updateUserRole(userName, updatedRoles);
+				return null;
+			});
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
 		}
 	}
 
 	// Removes a role from a user
 	public void removeUserRole(String userName, String removeRole) {
-		String query = "UPDATE cse360users SET role = ? WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			String existingRoles = getUserRole(userName);
-			List<String> roles = new ArrayList<>(Arrays.asList(existingRoles.split(",")));
-			roles.remove(removeRole);
-			String updatedRoles = String.join(",", roles);
-			pstmt.setString(1, updatedRoles);
+		try {
+			inTransaction(Connection.TRANSACTION_REPEATABLE_READ, db -> {
+				List<String> roles = new ArrayList<>(Arrays.asList(getUserRole(userName).split(",")));
+				roles.remove(removeRole);
+				updateUserRole(userName, String.join(",", roles));
+				return null;
+			});
+		} catch (SQLException e) {
+			reportError(e);
+		}
+	}
+
+	private void updateUserRole(String userName, String roles) throws SQLException {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.UPDATE_USER_ROLE.prepare(connection)) {
+			pstmt.setString(1, roles);
 			pstmt.setString(2, userName);
 			pstmt.executeUpdate();
-		} catch (SQLException e) {
-			e.printStackTrace();
 		}
 	}
 
 	// Checks if the user is the last Admin
 	public boolean isLastAdmin(String userName) {
-		String query = "SELECT COUNT(*) FROM cse360users WHERE role LIKE '%Admin%'";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		int adminCount = 0;
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.COUNT_ADMINS.prepare(connection)) {
 			ResultSet rs = pstmt.executeQuery();
-			if (rs.next() && rs.getInt(1) == 1) {
-				return userHasRole(userName, "Admin");
+			if (rs.next()) {
+				adminCount = rs.getInt(1);
 			}
 		} catch (SQLException e) {
-			e.printStackTrace();
+			reportError(e);
+		}
+		return adminCount == 1 && userHasRole(userName, "Admin");
+	}
+
+	/**
+	 * Returns H2's estimate of the number of rows in a table. Unlike COUNT(*) this
+	 * reads table metadata, so it stays cheap however large the table grows.
+	 *
+	 * @param table the table name, e.g. "Questions".
+	 * @return the estimated row count, or 0 if the table does not exist.
+	 * @throws SQLException if the metadata cannot be read.
+	 */
+	public long estimateRowCount(String table) throws SQLException {
+		try (Connection connection = getConnection();
+				PreparedStatement pstmt = NamedQuery.ESTIMATE_ROW_COUNT.prepare(connection)) {
+			// Unquoted identifiers are stored in upper case
+			pstmt.setString(1, table.toUpperCase(Locale.ROOT));
+			try (ResultSet rs = pstmt.executeQuery()) {
+				return rs.next() ? rs.getLong(1) : 0;
+			}
+		}
+	}
+
+	/**
+	 * Runs {@code work} as a single transaction with the connection's default
+	 * isolation level. See {@link #inTransaction(int, AsyncDatabaseHelper.DatabaseCall)}.
+	 */
+	public <T> T inTransaction(AsyncDatabaseHelper.DatabaseCall<T> work) throws SQLException {
+		return inTransaction(-1, work);
+	}
+
+	/**
+	 * Runs {@code work} as a single unit of work. Every helper method it calls on
+	 * this thread (and every {@link #getConnection()}) shares one connection, and
+	 * all of their statements are committed together, so the whole flow costs one
+	 * commit instead of one per statement.
+	 *
+	 * The transaction rolls back if {@code work} throws or if a helper method
+	 * inside it hits a database error (even one it only prints). When the failure
+	 * is a lock timeout, deadlock or concurrent update, the work is run again from
+	 * the start, up to {@code cse360.tx.maxRetries} times. A call made while a
+	 * transaction is already active simply joins it.
+	 *
+	 * @param isolation a {@code Connection.TRANSACTION_*} level, or -1 for the default.
+	 * @param work      the operations to run; may be executed more than once.
+	 * @return whatever {@code work} returns.
+	 * @throws SQLException if the transaction fails and cannot be retried.
+	 */
+	public <T> T inTransaction(int isolation, AsyncDatabaseHelper.DatabaseCall<T> work) throws SQLException {
+		if (currentTransaction.get() != null) {
+			return work.call(this);
+		}
+		int maxRetries = config.getTransactionMaxRetries();
+		for (int attempt = 0;; attempt++) {
+			try {
+				return runTransaction(isolation, work);
+			} catch (SQLException e) {
+				if (attempt >= maxRetries || !isRetryable(e)) {
+					throw e;
+				}
+				backOff(attempt);
+			}
+		}
+	}
+
+	private <T> T runTransaction(int isolation, AsyncDatabaseHelper.DatabaseCall<T> work) throws SQLException {
+		try (Connection connection = getConnection()) {
+			int previousIsolation = connection.getTransactionIsolation();
+			if (isolation != -1) {
+				connection.setTransactionIsolation(isolation);
+			}
+			connection.setAutoCommit(false);
+			Transaction transaction = new Transaction(connection);
+			currentTransaction.set(transaction);
+			T result;
+			try {
+				result = work.call(this);
+				if (transaction.failure() != null) {
+					throw transaction.failure();
+				}
+				stampVersions(connection, transaction.versionStamps());
+				connection.commit();
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				currentTransaction.remove();
+				connection.setAutoCommit(true);
+				connection.setTransactionIsolation(previousIsolation);
+			}
+			// Only reached once committed: a rollback (or a retry) drops what was queued
+			transaction.runAfterCommit();
+			return result;
+		}
+	}
+
+	/**
+	 * Gives a Questions or Answers row written in the active transaction (or
+	 * its tombstone) a new row_version as the transaction commits. The version
+	 * a row gets when the statement runs says nothing about when it commits: a
+	 * long transaction can commit after later writes, and refresh(), which
+	 * reads everything above the newest version it saw, would skip it for
+	 * good. Stamped rows are updated while holding the change clock's row
+	 * lock until the commit, so their versions are newer than every committed
+	 * one, in commit order.
+	 *
+	 * @param stamp one of the {@code NamedQuery.STAMP_*} queries.
+	 * @param id    the id of the row written.
+	 * @throws IllegalStateException outside {@link #inTransaction}.
+	 */
+	public void stampAtCommit(NamedQuery stamp, int id) {
+		Transaction transaction = currentTransaction.get();
+		if (transaction == null) {
+			throw new IllegalStateException("Versioned writes must run inside inTransaction().");
+		}
+		transaction.stampAtCommit(stamp, id);
+	}
+
+	// Takes the change clock's lock (held until the commit) and re-stamps the given rows
+	private static void stampVersions(Connection connection, Map<NamedQuery, List<Integer>> stamps)
+			throws SQLException {
+		if (stamps.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement clock = NamedQuery.LOCK_CHANGE_CLOCK.prepare(connection)) {
+			clock.executeUpdate();
+		}
+		for (Map.Entry<NamedQuery, List<Integer>> entry : stamps.entrySet()) {
+			try (PreparedStatement pstmt = entry.getKey().prepare(connection)) {
+				pstmt.setObject(1, entry.getValue().toArray(new Integer[0]));
+				pstmt.executeUpdate();
+			}
+		}
+	}
+
+	/**
+	 * Runs {@code action} once the changes made so far on this thread are
+	 * committed: right away outside {@link #inTransaction}, and after the commit
+	 * inside it. If the transaction rolls back, the action never runs. Entity
+	 * events go through here, so listeners never see a write that was undone.
+	 *
+	 * @param action what to run after the commit.
+	 */
+	public void afterCommit(Runnable action) {
+		Transaction transaction = currentTransaction.get();
+		if (transaction != null) {
+			transaction.afterCommit(action);
+		} else {
+			action.run();
+		}
+	}
+
+	// H2 error codes: LOCK_TIMEOUT_1, DEADLOCK_1 and CONCURRENT_UPDATE_1
+	private static boolean isRetryable(SQLException e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof SQLException) {
+				int code = ((SQLException) t).getErrorCode();
+				if (code == 50200 || code == 40001 || code == 90131) {
+					return true;
+				}
+			}
 		}
 		return false;
 	}
 
-	public Connection getConnection() {
-		return connection;
+	// Exponential backoff with jitter so retrying transactions do not collide again
+	private void backOff(int attempt) throws SQLException {
+		long base = config.getTransactionRetryBackoffMillis() << Math.min(attempt, 10);
+		try {
+			Thread.sleep(base + ThreadLocalRandom.current().nextLong(base + 1));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while retrying a transaction.", e);
+		}
+	}
+
+	// Prints a swallowed database error and makes the active transaction (if any) roll back.
+	private void reportError(SQLException e) {
+		e.printStackTrace();
+		Transaction transaction = currentTransaction.get();
+		if (transaction != null) {
+			transaction.markFailed(e);
+		}
+	}
+
+	/**
+	 * Binds the parameters of one row of a batched statement.
+	 */
+	@FunctionalInterface
+	public interface RowBinder<T> {
+		void bind(PreparedStatement pstmt, T row) throws SQLException;
+	}
+
+	/**
+	 * Inserts many rows with JDBC batching. Rows are sent and committed in chunks
+	 * of {@code chunkSize}, so one round trip and one commit cover a whole chunk.
+	 * If a chunk fails it is rolled back and the exception is rethrown; chunks
+	 * committed before it stay in the database.
+	 *
+	 * @param query     an insert query that returns generated keys.
+	 * @param rows      the rows to insert.
+	 * @param binder    sets the statement parameters for one row.
+	 * @param chunkSize how many rows go into each batch and transaction.
+	 * @return the generated ids, in the order of {@code rows}, and timing.
+	 * @throws SQLException if an insert fails.
+	 */
+	public <T> BatchResult insertBatch(NamedQuery query, List<T> rows, RowBinder<? super T> binder, int chunkSize)
+			throws SQLException {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be at least 1.");
+		}
+		long start = System.nanoTime();
+		int[] ids = new int[rows.size()];
+		int chunks = 0;
+		// Inside inTransaction() the rows become part of that transaction instead
+		Transaction transaction = currentTransaction.get();
+		boolean ownTransaction = transaction == null;
+		NamedQuery stamp = query.versionStamp();
+		try (Connection connection = getConnection()) {
+			if (ownTransaction) {
+				connection.setAutoCommit(false);
+			}
+			try (PreparedStatement pstmt = query.prepare(connection)) {
+				for (int from = 0; from < rows.size(); from += chunkSize) {
+					int to = Math.min(from + chunkSize, rows.size());
+					for (int i = from; i < to; i++) {
+						binder.bind(pstmt, rows.get(i));
+						pstmt.addBatch();
+					}
+					pstmt.executeBatch();
+					try (ResultSet keys = pstmt.getGeneratedKeys()) {
+						int i = from;
+						while (keys.next() && i < to) {
+							ids[i++] = keys.getInt(1);
+						}
+						if (i != to) {
+							throw new SQLException("Batch insert returned " + (i - from) + " ids for " + (to - from)
+									+ " rows.");
+						}
+					}
+					if (ownTransaction) {
+						if (stamp != null) {
+							stampVersions(connection, Map.of(stamp, idList(ids, from, to)));
+						}
+						connection.commit();
+					} else if (stamp != null) {
+						for (int i = from; i < to; i++) {
+							transaction.stampAtCommit(stamp, ids[i]);
+						}
+					}
+					chunks++;
+				}
+			} catch (SQLException e) {
+				if (ownTransaction) {
+					connection.rollback();
+				}
+				throw e;
+			}
+		}
+		return new BatchResult(ids, chunks, System.nanoTime() - start);
+	}
+
+	private static List<Integer> idList(int[] ids, int from, int to) {
+		List<Integer> list = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			list.add(ids[i]);
+		}
+		return list;
+	}
+
+	/**
+	 * Builds one object from the current row of a result set.
+	 */
+	@FunctionalInterface
+	public interface RowMapper<T> {
+		T map(ResultSet rs) throws SQLException;
+	}
+
+	/**
+	 * Streams the rows of a query without materializing them. The statement runs
+	 * with H2's lazy query execution, so rows are produced as the stream pulls
+	 * them and memory use does not depend on the size of the result. The stream
+	 * holds a pooled connection until it is closed, so always use it in a
+	 * try-with-resources block.
+	 *
+	 * @param query     the SELECT to run (without parameters).
+	 * @param fetchSize the JDBC fetch size hint.
+	 * @param mapper    turns each row into an object.
+	 * @return a sequential stream of the mapped rows; close it when done.
+	 * @throws SQLException if the query cannot be started.
+	 */
+	public <T> Stream<T> stream(NamedQuery query, int fetchSize, RowMapper<T> mapper) throws SQLException {
+		Connection connection = getConnection();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			setLazyQueryExecution(connection, true);
+			pstmt = query.prepare(connection);
+			pstmt.setFetchSize(fetchSize);
+			rs = pstmt.executeQuery();
+		} catch (SQLException e) {
+			closeStream(connection, pstmt, rs);
+			throw e;
+		}
+		ResultSet results = rs;
+		PreparedStatement statement = pstmt;
+		Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				try {
+					if (!results.next()) {
+						return false;
+					}
+					action.accept(mapper.map(results));
+					return true;
+				} catch (SQLException e) {
+					throw new IllegalStateException("Reading " + query + " failed: " + e.getMessage(), e);
+				}
+			}
+		};
+		return StreamSupport.stream(rows, false).onClose(() -> closeStream(connection, statement, results));
+	}
+
+	private static void setLazyQueryExecution(Connection connection, boolean lazy) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SET LAZY_QUERY_EXECUTION " + lazy);
+		}
+	}
+
+	// Closes everything even if one step fails; the first failure is reported with the rest suppressed
+	private void closeStream(Connection connection, PreparedStatement pstmt, ResultSet rs) {
+		SQLException failure = null;
+		try {
+			if (rs != null) {
+				rs.close();
+			}
+		} catch (SQLException e) {
+			failure = e;
+		}
+		try {
+			if (pstmt != null) {
+				pstmt.close();
+			}
+		} catch (SQLException e) {
+			failure = suppress(failure, e);
+		}
+		try {
+			// Pooled connections must not stay in lazy mode for the next borrower
+			setLazyQueryExecution(connection, false);
+		} catch (SQLException e) {
+			failure = suppress(failure, e);
+		}
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			failure = suppress(failure, e);
+		}
+		if (failure != null) {
+			reportError(failure);
+		}
+	}
+
+	private static SQLException suppress(SQLException failure, SQLException next) {
+		if (failure == null) {
+			return next;
+		}
+		failure.addSuppressed(next);
+		return failure;
+	}
+
+	/**
+	 * Borrows a connection from the pool. The caller must close it (ideally with
+	 * try-with-resources) to hand it back; closing does not close the underlying
+	 * database connection. Inside {@link #inTransaction} this returns the
+	 * transaction's connection instead.
+	 *
+	 * @return a pooled connection.
+	 * @throws SQLException if no connection becomes available in time or the
+	 *                      helper is not connected.
+	 */
+	public Connection getConnection() throws SQLException {
+		Transaction transaction = currentTransaction.get();
+		if (transaction != null) {
+			return transaction.view();
+		}
+		if (pool == null) {
+			throw new SQLException("Not connected to the database. Call connectToDatabase() first.");
+		}
+		return pool.borrow();
+	}
+
+	/**
+	 * Returns the asynchronous view of this helper, creating it on first use. Its
+	 * concurrency is capped at the pool size so queued calls wait for a permit
+	 * rather than for a connection.
+	 *
+	 * @return the shared AsyncDatabaseHelper for this connection.
+	 */
+	public synchronized AsyncDatabaseHelper async() {
+		if (async == null) {
+			int maxConcurrency = pool == null ? 1 : pool.getConfig().getMaxSize();
+			async = new AsyncDatabaseHelper(this, maxConcurrency);
+		}
+		return async;
+	}
+
+	// Whether the calling thread is inside inTransaction().
+	public boolean isInTransaction() {
+		return currentTransaction.get() != null;
+	}
+
+	// Cache behind Question.read; see EntityCache.
+	public EntityCache<Question> questionCache() {
+		return questionCache;
+	}
+
+	// Cache behind Answer.read.
+	public EntityCache<Answer> answerCache() {
+		return answerCache;
+	}
+
+	public EntityEvents<Question> questionEvents() {
+		return questionEvents;
+	}
+
+	public EntityEvents<Answer> answerEvents() {
+		return answerEvents;
+	}
+
+	public DatabaseConfig getConfig() {
+		return config;
+	}
+
+	// Returns a snapshot of the connection pool metrics (active, idle, waiters, borrow latency).
+	public ConnectionPool.Stats getPoolStats() {
+		return pool == null ? null : pool.getStats();
 	}
 
 }
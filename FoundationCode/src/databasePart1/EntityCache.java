@@ -0,0 +1,192 @@
+package databasePart1;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * The EntityCache class keeps recently read Questions or Answers in memory so
+ * that reading the same row again skips the database. It is bounded both by
+ * the number of entries and by an estimate of the bytes they hold, and evicts
+ * the least recently used entries first. Entries older than the time-to-live
+ * are read again, so changes made by other clients show up eventually;
+ * changes made through this application invalidate the entry right away.
+ *
+ * Entities are mutable, so the cache stores its own copy and hands every
+ * caller a fresh one.
+ *
+ * @param <T> the cached entity type.
+ */
+public class EntityCache<T> {
+
+	private static final class Entry<T> {
+		final T value;
+		final long weight;
+		final long loadedAt;
+
+		Entry(T value, long weight, long loadedAt) {
+			this.value = value;
+			this.weight = weight;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+	private final String name;
+	private final int maxEntries;
+	private final long maxBytes;
+	private final long ttlNanos;
+	private final UnaryOperator<T> copier;
+	private final ToLongFunction<T> weigher;
+
+	// Access order: the eldest entry is the least recently used
+	private final LinkedHashMap<Integer, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+	// Bumped by every invalidation; a read that started before one must not fill the cache
+	private long invalidations;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param name       shown in {@link #toString()}.
+	 * @param maxEntries the most entities kept; 0 disables the cache.
+	 * @param maxBytes   the most (estimated) bytes kept.
+	 * @param ttlMillis  how long an entry is trusted; 0 means until evicted or invalidated.
+	 * @param copier     makes an independent copy of an entity.
+	 * @param weigher    estimates the bytes an entity takes.
+	 */
+	public EntityCache(String name, int maxEntries, long maxBytes, long ttlMillis, UnaryOperator<T> copier,
+			ToLongFunction<T> weigher) {
+		if (maxEntries < 0 || maxBytes < 0 || ttlMillis < 0) {
+			throw new IllegalArgumentException("Cache limits cannot be negative.");
+		}
+		this.name = name;
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.ttlNanos = ttlMillis * 1_000_000L;
+		this.copier = copier;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Returns the cached entity, or reads it with {@code loader} and caches it.
+	 * Inside a transaction the cache is bypassed: the transaction may see rows
+	 * that are later rolled back.
+	 *
+	 * @param id       the entity id.
+	 * @param dbHelper the helper passed to the loader.
+	 * @param loader   reads the entity from the database; may return null.
+	 * @return a copy the caller may modify, or null if there is no such entity.
+	 * @throws SQLException if the loader fails.
+	 */
+	public T read(int id, DatabaseHelper dbHelper, AsyncDatabaseHelper.DatabaseCall<T> loader) throws SQLException {
+		if (dbHelper.isInTransaction()) {
+			return loader.call(dbHelper);
+		}
+		long stamp;
+		synchronized (this) {
+			T cached = lookup(id);
+			if (cached != null) {
+				hits.increment();
+				return copier.apply(cached);
+			}
+			misses.increment();
+			stamp = invalidations;
+		}
+		T loaded = loader.call(dbHelper);
+		if (loaded != null) {
+			put(id, loaded, stamp);
+		}
+		return loaded;
+	}
+
+	private T lookup(int id) {
+		Entry<T> entry = entries.get(id);
+		if (entry == null) {
+			return null;
+		}
+		if (ttlNanos > 0 && System.nanoTime() - entry.loadedAt > ttlNanos) {
+			remove(id);
+			return null;
+		}
+		return entry.value;
+	}
+
+	private synchronized void put(int id, T value, long stamp) {
+		if (maxEntries == 0 || stamp != invalidations) {
+			return;
+		}
+		T copy = copier.apply(value);
+		long weight = weigher.applyAsLong(copy);
+		if (weight > maxBytes) {
+			return;
+		}
+		remove(id);
+		entries.put(id, new Entry<>(copy, weight, System.nanoTime()));
+		bytes += weight;
+		Iterator<Map.Entry<Integer, Entry<T>>> eldest = entries.entrySet().iterator();
+		while (entries.size() > maxEntries || bytes > maxBytes) {
+			bytes -= eldest.next().getValue().weight;
+			eldest.remove();
+			evictions.increment();
+		}
+	}
+
+	private void remove(int id) {
+		Entry<T> entry = entries.remove(id);
+		if (entry != null) {
+			bytes -= entry.weight;
+		}
+	}
+
+	// Drops one entity, e.g. after it was updated or deleted.
+	public synchronized void invalidate(int id) {
+		invalidations++;
+		remove(id);
+	}
+
+	public synchronized void clear() {
+		invalidations++;
+		entries.clear();
+		bytes = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	// Fraction of reads served from memory, 0 before the first read.
+	public double getHitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0 : (double) h / total;
+	}
+
+	@Override
+	public String toString() {
+		return "EntityCache " + name + " [entries=" + size() + ", bytes=" + getBytes() + ", hits=" + getHits()
+				+ ", misses=" + getMisses() + ", hitRate=" + String.format("%.1f%%", getHitRate() * 100)
+				+ ", evictions=" + getEvictions() + "]";
+	}
+}
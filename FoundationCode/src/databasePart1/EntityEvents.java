@@ -0,0 +1,51 @@
+package databasePart1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The EntityEvents class keeps the listeners for one entity type and notifies
+ * them of changes. Listeners are held weakly: a collection that registers
+ * itself stops receiving events once nothing else references it, so there is
+ * no need to unregister.
+ *
+ * @param <T> the entity type.
+ */
+public class EntityEvents<T> {
+
+	private final Set<EntityListener<T>> listeners = Collections.newSetFromMap(new WeakHashMap<>());
+
+	public synchronized void addListener(EntityListener<T> listener) {
+		listeners.add(listener);
+	}
+
+	public synchronized void removeListener(EntityListener<T> listener) {
+		listeners.remove(listener);
+	}
+
+	public void fireCreated(T entity) {
+		for (EntityListener<T> listener : snapshot()) {
+			listener.created(entity);
+		}
+	}
+
+	public void fireUpdated(T entity) {
+		for (EntityListener<T> listener : snapshot()) {
+			listener.updated(entity);
+		}
+	}
+
+	public void fireDeleted(T entity) {
+		for (EntityListener<T> listener : snapshot()) {
+			listener.deleted(entity);
+		}
+	}
+
+	// Listeners may register or unregister while being notified
+	private synchronized List<EntityListener<T>> snapshot() {
+		return new ArrayList<>(listeners);
+	}
+}
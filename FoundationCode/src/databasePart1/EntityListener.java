@@ -0,0 +1,23 @@
+package databasePart1;
+
+/**
+ * Receives a callback after a Question or Answer has been created, updated or
+ * deleted through its CRUD methods. Callbacks run on the thread that made the
+ * change, right after the statement succeeded or, inside
+ * {@link DatabaseHelper#inTransaction}, once the transaction commits. Writes
+ * that are rolled back are never reported.
+ *
+ * @param <T> the entity type.
+ */
+public interface EntityListener<T> {
+
+	default void created(T entity) {
+	}
+
+	// The entity already holds its new content.
+	default void updated(T entity) {
+	}
+
+	default void deleted(T entity) {
+	}
+}
@@ -0,0 +1,76 @@
+package databasePart1;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The LatencyHistogram class counts latencies in fixed log-linear buckets:
+ * every power of two is split into four sub-buckets, which keeps percentile
+ * estimates within about 12% while using a single preallocated array.
+ * Recording is lock-free and does not allocate.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	// Records one latency in nanoseconds.
+	public void record(long nanos) {
+		counts.incrementAndGet(bucketOf(nanos < 0 ? 0 : nanos));
+	}
+
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	// Highest value that falls into the given bucket.
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		long base = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+		return base + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * Estimates a percentile from the recorded values.
+	 *
+	 * @param percentile a value between 0 and 100, e.g. 99.
+	 * @return the upper bound of the bucket holding that percentile, in nanoseconds.
+	 */
+	public long percentile(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(total * (percentile / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= Math.max(target, 1)) {
+				return upperBound(i);
+			}
+		}
+		return upperBound(BUCKETS - 1);
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+	}
+}
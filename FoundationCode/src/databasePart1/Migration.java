@@ -0,0 +1,61 @@
+package databasePart1;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The Migration class is one versioned step of the database schema: an
+ * ordered list of SQL statements plus a checksum of their text. Once a
+ * migration has been applied its statements must never change; add a new
+ * migration instead.
+ */
+public class Migration {
+
+	private final int version;
+	private final String description;
+	private final List<String> statements;
+	private final long checksum;
+
+	public Migration(int version, String description, String... statements) {
+		if (version < 1) {
+			throw new IllegalArgumentException("Migration versions start at 1.");
+		}
+		this.version = version;
+		this.description = description;
+		this.statements = Collections.unmodifiableList(Arrays.asList(statements));
+		this.checksum = checksumOf(this.statements);
+	}
+
+	private static long checksumOf(List<String> statements) {
+		CRC32 crc = new CRC32();
+		for (String statement : statements) {
+			crc.update(statement.trim().getBytes(StandardCharsets.UTF_8));
+			crc.update(';');
+		}
+		return crc.getValue();
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public List<String> getStatements() {
+		return statements;
+	}
+
+	public long getChecksum() {
+		return checksum;
+	}
+
+	@Override
+	public String toString() {
+		return "V" + version + " " + description;
+	}
+}
@@ -0,0 +1,161 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The NamedQuery enum is the central registry of the SQL used by the
+ * application. Keeping every statement here means each one has a single,
+ * stable SQL string, so the per-connection statement cache can reuse the
+ * prepared statement across calls.
+ */
+public enum NamedQuery {
+
+	// Users
+	COUNT_USERS("SELECT COUNT(*) AS count FROM cse360users"),
+	COUNT_OTP("SELECT COUNT(*) AS count FROM One_Time_Passwords"),
+	REGISTER_USER("INSERT INTO cse360users (userName, password, role) VALUES (?, ?, ?)", 2),
+	LOGIN("SELECT OTP, isUSED FROM cse360users WHERE userName = ? AND password = ? AND role = ?", 2),
+	DELETE_USER("DELETE FROM cse360users WHERE username = ?"),
+	LIST_USERS("SELECT userName, role FROM cse360users"),
+	USER_EXISTS("SELECT COUNT(*) FROM cse360users WHERE userName = ?"),
+	GET_USER_ROLE("SELECT role FROM cse360users WHERE userName = ?"),
+	UPDATE_USER_ROLE("UPDATE cse360users SET role = ? WHERE userName = ?"),
+	COUNT_ADMINS("SELECT COUNT(*) FROM cse360users WHERE role LIKE '%Admin%'"),
+
+	// Invitation codes
+	// - Added the current time through CURRENT_TIMESTAMP
+	// - USED DATE_ADD to add 5 minutes to current time for expired time
+	INSERT_INVITATION_CODE("INSERT INTO InvitationCodes (code, startTime, expires) VALUES (?, CURRENT_TIMESTAMP, DATEADD(MINUTE, 5, CURRENT_TIMESTAMP))", 1),
+	// Checks and consumes the code in one statement; exactly one caller sees an affected row
+	REDEEM_INVITATION_CODE("UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ? AND isUsed = FALSE AND expires > CURRENT_TIMESTAMP", 1),
+
+	// One-time passwords
+	SET_OTP("UPDATE cse360users SET OTP = ?, isUSED = FALSE WHERE userName = ?", 1),
+	// Conditional updates like REDEEM_INVITATION_CODE: an OTP can only be consumed once
+	REDEEM_OTP("UPDATE cse360users SET OTP = NULL, isUSED = TRUE WHERE OTP = ? AND isUSED = FALSE", 1),
+	REDEEM_OTP_LOGIN("UPDATE cse360users SET OTP = NULL, isUSED = TRUE WHERE userName = ? AND OTP = ? AND isUSED = FALSE AND role = ?", 2),
+	CLEAR_OTP("UPDATE cse360users SET OTP = NULL, isUSED = TRUE WHERE userName = ? AND isUSED = FALSE"),
+
+	// Questions
+	INSERT_QUESTION("INSERT INTO Questions (content) VALUES (?)", true),
+	READ_QUESTION("SELECT id, content FROM Questions WHERE id = ?"),
+	UPDATE_QUESTION("UPDATE Questions SET content = ?, row_version = NEXT VALUE FOR change_seq, updated_at = CURRENT_TIMESTAMP WHERE id = ?"),
+	DELETE_QUESTION("DELETE FROM Questions WHERE id = ?"),
+	LOAD_ALL_QUESTIONS("SELECT id, content FROM Questions"),
+	// Read lazily by stream(); the primary key order needs no sort
+	STREAM_QUESTIONS("SELECT id, content FROM Questions ORDER BY id"),
+	// FT_SEARCH_DATA covers every full-text indexed table, so keep this one's rows
+	FULLTEXT_SEARCH_QUESTIONS("SELECT q.id, q.content FROM FT_SEARCH_DATA(?, 0, 0) ft JOIN Questions q ON q.id = CAST(ft.KEYS[1] AS INT) WHERE ft.\"TABLE\" = 'QUESTIONS' ORDER BY ft.SCORE DESC, q.id LIMIT ?"),
+	// Keyset pagination: seeks on the primary key instead of skipping an OFFSET
+	LOAD_QUESTION_PAGE("SELECT id, content FROM Questions WHERE id > ? ORDER BY id LIMIT ?"),
+	// Delta sync: the newest version a full load covers, then what changed after it
+	QUESTIONS_SYNC_VERSION("SELECT GREATEST((SELECT COALESCE(MAX(row_version), 0) FROM Questions), (SELECT COALESCE(MAX(row_version), 0) FROM deleted_rows WHERE table_name = 'Questions'))"),
+	QUESTIONS_CHANGED_SINCE("SELECT id, content, row_version FROM Questions WHERE row_version > ? ORDER BY row_version"),
+
+	// Answers
+	INSERT_ANSWER("INSERT INTO Answers (questionId, content) VALUES (?, ?)", true),
+	READ_ANSWER("SELECT id, questionId, content FROM Answers WHERE id = ?"),
+	UPDATE_ANSWER("UPDATE Answers SET content = ?, row_version = NEXT VALUE FOR change_seq, updated_at = CURRENT_TIMESTAMP WHERE id = ?"),
+	DELETE_ANSWER("DELETE FROM Answers WHERE id = ?"),
+	LOAD_ALL_ANSWERS("SELECT id, questionId, content FROM Answers"),
+	STREAM_ANSWERS("SELECT id, questionId, content FROM Answers ORDER BY id"),
+	FULLTEXT_SEARCH_ANSWERS("SELECT a.id, a.questionId, a.content FROM FT_SEARCH_DATA(?, 0, 0) ft JOIN Answers a ON a.id = CAST(ft.KEYS[1] AS INT) WHERE ft.\"TABLE\" = 'ANSWERS' ORDER BY ft.SCORE DESC, a.id LIMIT ?"),
+	LOAD_ANSWER_PAGE("SELECT id, questionId, content FROM Answers WHERE id > ? ORDER BY id LIMIT ?"),
+	ANSWERS_SYNC_VERSION("SELECT GREATEST((SELECT COALESCE(MAX(row_version), 0) FROM Answers), (SELECT COALESCE(MAX(row_version), 0) FROM deleted_rows WHERE table_name = 'Answers'))"),
+	ANSWERS_CHANGED_SINCE("SELECT id, questionId, content, row_version FROM Answers WHERE row_version > ? ORDER BY row_version"),
+	// Both served by idx_answers_question, which also keeps each question's answers in id order
+	LOAD_ANSWERS_FOR_QUESTION("SELECT id, questionId, content FROM Answers WHERE questionId = ? ORDER BY id"),
+	// One statement for any number of questions: the ids are bound as a single array parameter
+	LOAD_ANSWERS_FOR_QUESTIONS("SELECT id, questionId, content FROM Answers WHERE questionId = ANY(?) ORDER BY questionId, id"),
+
+	// Tombstones: deletes are recorded so refresh() can drop the rows from client lists
+	RECORD_DELETION("INSERT INTO deleted_rows (table_name, id) VALUES (?, ?)"),
+	DELETED_SINCE("SELECT id, row_version FROM deleted_rows WHERE table_name = ? AND row_version > ?"),
+
+	// Commit-ordered versions: a transaction locks the clock row, then re-stamps what it wrote, then
+	// commits, so a later stamp always belongs to a later commit. Each takes the ids as one array
+	LOCK_CHANGE_CLOCK("UPDATE change_clock SET ticks = ticks + 1 WHERE id = 1"),
+	STAMP_QUESTIONS("UPDATE Questions SET row_version = NEXT VALUE FOR change_seq WHERE id = ANY(?)"),
+	STAMP_ANSWERS("UPDATE Answers SET row_version = NEXT VALUE FOR change_seq WHERE id = ANY(?)"),
+	STAMP_QUESTION_DELETIONS("UPDATE deleted_rows SET row_version = NEXT VALUE FOR change_seq WHERE table_name = 'Questions' AND id = ANY(?)"),
+	STAMP_ANSWER_DELETIONS("UPDATE deleted_rows SET row_version = NEXT VALUE FOR change_seq WHERE table_name = 'Answers' AND id = ANY(?)"),
+
+	// Metadata
+	ESTIMATE_ROW_COUNT("SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = ?");
+
+	private static final Map<String, NamedQuery> BY_SQL = new HashMap<>();
+
+	static {
+		for (NamedQuery query : values()) {
+			BY_SQL.put(query.sql, query);
+		}
+	}
+
+	private final String sql;
+	private final boolean generatedKeys;
+	// 1-based indexes of parameters holding passwords, OTPs or invitation codes
+	private final int[] sensitiveParameters;
+
+	NamedQuery(String sql, int... sensitiveParameters) {
+		this(sql, false, sensitiveParameters);
+	}
+
+	NamedQuery(String sql, boolean generatedKeys, int... sensitiveParameters) {
+		this.sql = sql;
+		this.generatedKeys = generatedKeys;
+		this.sensitiveParameters = sensitiveParameters;
+	}
+
+	// Finds the registered query with exactly this SQL text, or null.
+	public static NamedQuery forSql(String sql) {
+		return BY_SQL.get(sql);
+	}
+
+	public String sql() {
+		return sql;
+	}
+
+	public boolean returnsGeneratedKeys() {
+		return generatedKeys;
+	}
+
+	// The STAMP_ query that re-stamps the rows this insert wrote at commit, or null if it writes no versioned rows.
+	public NamedQuery versionStamp() {
+		switch (this) {
+		case INSERT_QUESTION:
+			return STAMP_QUESTIONS;
+		case INSERT_ANSWER:
+			return STAMP_ANSWERS;
+		default:
+			return null;
+		}
+	}
+
+	// Whether the given (1-based) parameter must be redacted in logs.
+	public boolean isSensitiveParameter(int index) {
+		for (int sensitive : sensitiveParameters) {
+			if (sensitive == index) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Prepares this query on the given connection, asking for generated keys
+	 * when the query is an insert that needs them.
+	 *
+	 * @param connection the (pooled) connection to prepare on.
+	 * @return the prepared statement; close it when done.
+	 * @throws SQLException if the statement cannot be prepared.
+	 */
+	public PreparedStatement prepare(Connection connection) throws SQLException {
+		return generatedKeys ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+				: connection.prepareStatement(sql);
+	}
+}
@@ -0,0 +1,141 @@
+package databasePart1;
+
+import java.util.Properties;
+
+/**
+ * The PoolConfig class holds the sizing and timeout settings used by
+ * {@link ConnectionPool}. Defaults can be overridden with system properties
+ * (for example {@code -Dcse360.pool.maxSize=20}) or through the database
+ * config file read by {@link DatabaseConfig}.
+ */
+public class PoolConfig {
+
+	private int minSize = 1;
+	private int maxSize = 10;
+	private long idleTimeoutMillis = 5 * 60 * 1000L;
+	private long borrowTimeoutMillis = 30 * 1000L;
+	private long evictionIntervalMillis = 30 * 1000L;
+	private boolean validateOnBorrow = true;
+	private int validationTimeoutSeconds = 2;
+	private int statementCacheSize = 64;
+
+	// Builds a configuration from the cse360.pool.* system properties, falling
+	// back to the defaults above for anything that is not set.
+	public static PoolConfig fromSystemProperties() {
+		return fromProperties(System.getProperties());
+	}
+
+	// Same as fromSystemProperties, but reads the cse360.pool.* keys from the given properties.
+	public static PoolConfig fromProperties(Properties properties) {
+		PoolConfig config = new PoolConfig();
+		config.setMinSize(DatabaseConfig.intValue(properties, "cse360.pool.minSize", config.minSize));
+		config.setMaxSize(DatabaseConfig.intValue(properties, "cse360.pool.maxSize", config.maxSize));
+		config.setIdleTimeoutMillis(longValue(properties, "cse360.pool.idleTimeoutMillis", config.idleTimeoutMillis));
+		config.setBorrowTimeoutMillis(
+				longValue(properties, "cse360.pool.borrowTimeoutMillis", config.borrowTimeoutMillis));
+		config.setEvictionIntervalMillis(
+				longValue(properties, "cse360.pool.evictionIntervalMillis", config.evictionIntervalMillis));
+		config.setValidationTimeoutSeconds(DatabaseConfig.intValue(properties,
+				"cse360.pool.validationTimeoutSeconds", config.validationTimeoutSeconds));
+		config.setStatementCacheSize(
+				DatabaseConfig.intValue(properties, "cse360.pool.statementCacheSize", config.statementCacheSize));
+		String validate = properties.getProperty("cse360.pool.validateOnBorrow");
+		if (validate != null) {
+			config.setValidateOnBorrow(Boolean.parseBoolean(validate));
+		}
+		return config;
+	}
+
+	private static long longValue(Properties properties, String key, long defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+		}
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public void setMinSize(int minSize) {
+		if (minSize < 0) {
+			throw new IllegalArgumentException("Pool minimum size cannot be negative.");
+		}
+		this.minSize = minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void setMaxSize(int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Pool maximum size must be at least 1.");
+		}
+		this.maxSize = maxSize;
+	}
+
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	public long getBorrowTimeoutMillis() {
+		return borrowTimeoutMillis;
+	}
+
+	public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+		this.borrowTimeoutMillis = borrowTimeoutMillis;
+	}
+
+	public long getEvictionIntervalMillis() {
+		return evictionIntervalMillis;
+	}
+
+	public void setEvictionIntervalMillis(long evictionIntervalMillis) {
+		this.evictionIntervalMillis = evictionIntervalMillis;
+	}
+
+	public boolean isValidateOnBorrow() {
+		return validateOnBorrow;
+	}
+
+	public void setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+	}
+
+	public int getValidationTimeoutSeconds() {
+		return validationTimeoutSeconds;
+	}
+
+	public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+	}
+
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	// Number of prepared statements kept per connection, 0 disables the cache.
+	public void setStatementCacheSize(int statementCacheSize) {
+		if (statementCacheSize < 0) {
+			throw new IllegalArgumentException("Statement cache size cannot be negative.");
+		}
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolConfig [minSize=" + minSize + ", maxSize=" + maxSize + ", idleTimeoutMillis=" + idleTimeoutMillis
+				+ ", borrowTimeoutMillis=" + borrowTimeoutMillis + ", validateOnBorrow=" + validateOnBorrow
+				+ ", statementCacheSize=" + statementCacheSize + "]";
+	}
+}
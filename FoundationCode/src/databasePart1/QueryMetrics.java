@@ -0,0 +1,136 @@
+package databasePart1;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The QueryMetrics class is the process-wide registry of {@link QueryStats},
+ * one per {@link NamedQuery} plus a shared bucket for ad-hoc SQL. Pooled
+ * statements record every execute call here, so timings cover every
+ * DatabaseHelper method and the Question/Answer CRUD operations.
+ *
+ * The stats are published as MBeans under {@code databasePart1:type=QueryMetrics}
+ * and can be printed periodically as a text table.
+ */
+public final class QueryMetrics {
+
+	public static final String OTHER = "OTHER";
+
+	private static final Map<NamedQuery, QueryStats> BY_QUERY = new EnumMap<>(NamedQuery.class);
+	private static final Map<String, QueryStats> BY_SQL = new HashMap<>();
+	private static final QueryStats OTHER_STATS = new QueryStats(OTHER);
+
+	private static boolean mbeansRegistered;
+	private static ScheduledExecutorService dumper;
+
+	static {
+		for (NamedQuery query : NamedQuery.values()) {
+			QueryStats stats = new QueryStats(query.name());
+			BY_QUERY.put(query, stats);
+			BY_SQL.put(query.sql(), stats);
+		}
+	}
+
+	private QueryMetrics() {
+	}
+
+	public static QueryStats forQuery(NamedQuery query) {
+		return BY_QUERY.get(query);
+	}
+
+	// Resolves the stats for a SQL string; anything outside NamedQuery is counted as OTHER.
+	public static QueryStats forSql(String sql) {
+		QueryStats stats = BY_SQL.get(sql);
+		return stats != null ? stats : OTHER_STATS;
+	}
+
+	public static Collection<QueryStats> all() {
+		List<QueryStats> all = new ArrayList<>(BY_QUERY.values());
+		all.add(OTHER_STATS);
+		return all;
+	}
+
+	public static void resetAll() {
+		for (QueryStats stats : all()) {
+			stats.reset();
+		}
+	}
+
+	/**
+	 * Registers one MBean per operation with the platform MBean server. Safe to
+	 * call more than once.
+	 */
+	public static synchronized void registerMBeans() {
+		if (mbeansRegistered) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			for (QueryStats stats : all()) {
+				ObjectName name = new ObjectName("databasePart1:type=QueryMetrics,name=" + stats.getName());
+				if (!server.isRegistered(name)) {
+					server.registerMBean(stats, name);
+				}
+			}
+			mbeansRegistered = true;
+		} catch (JMException e) {
+			System.err.println("Could not register query metrics MBeans: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Prints {@link #dump()} to the given stream every {@code periodSeconds}.
+	 * Calling it again replaces the previous schedule.
+	 *
+	 * @param periodSeconds the dump interval; 0 or less stops dumping.
+	 * @param out           where to print.
+	 */
+	public static synchronized void startPeriodicDump(long periodSeconds, PrintStream out) {
+		if (dumper != null) {
+			dumper.shutdownNow();
+			dumper = null;
+		}
+		if (periodSeconds <= 0) {
+			return;
+		}
+		dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "cse360-query-metrics");
+			t.setDaemon(true);
+			return t;
+		});
+		dumper.scheduleAtFixedRate(() -> out.print(dump()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Formats every operation that has been called at least once as a table.
+	 *
+	 * @return the metrics table.
+	 */
+	public static String dump() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%-28s %10s %8s %10s %10s %10s %10s %10s%n", "operation", "calls", "errors",
+				"mean(us)", "p50(us)", "p95(us)", "p99(us)", "max(us)"));
+		for (QueryStats stats : all()) {
+			if (stats.getCalls() == 0) {
+				continue;
+			}
+			sb.append(String.format("%-28s %10d %8d %10d %10d %10d %10d %10d%n", stats.getName(), stats.getCalls(),
+					stats.getErrors(), stats.getMeanMicros(), stats.getP50Micros(), stats.getP95Micros(),
+					stats.getP99Micros(), stats.getMaxMicros()));
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,97 @@
+package databasePart1;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The QueryStats class holds the call count, error count and latency
+ * histogram of one logical database operation. All updates are lock-free and
+ * allocation-free so the counters can stay enabled in production.
+ */
+public class QueryStats implements QueryStatsMBean {
+
+	private final String name;
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	QueryStats(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Records one execution.
+	 *
+	 * @param nanos  how long the execution took.
+	 * @param failed whether it ended with an exception.
+	 */
+	public void record(long nanos, boolean failed) {
+		calls.increment();
+		if (failed) {
+			errors.increment();
+		}
+		totalNanos.add(nanos);
+		histogram.record(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	@Override
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	@Override
+	public long getMeanMicros() {
+		long count = calls.sum();
+		return count == 0 ? 0 : totalNanos.sum() / count / 1000;
+	}
+
+	@Override
+	public long getP50Micros() {
+		return percentileNanos(50) / 1000;
+	}
+
+	@Override
+	public long getP95Micros() {
+		return percentileNanos(95) / 1000;
+	}
+
+	@Override
+	public long getP99Micros() {
+		return percentileNanos(99) / 1000;
+	}
+
+	// Bucket upper bounds can overshoot, so never report more than the observed maximum
+	private long percentileNanos(double percentile) {
+		return Math.min(histogram.percentile(percentile), maxNanos.get());
+	}
+
+	@Override
+	public long getMaxMicros() {
+		return maxNanos.get() / 1000;
+	}
+
+	@Override
+	public void reset() {
+		calls.reset();
+		errors.reset();
+		totalNanos.reset();
+		maxNanos.set(0);
+		histogram.reset();
+	}
+}
@@ -0,0 +1,25 @@
+package databasePart1;
+
+/**
+ * The JMX view of one {@link QueryStats} entry. Latencies are in microseconds.
+ */
+public interface QueryStatsMBean {
+
+	String getName();
+
+	long getCalls();
+
+	long getErrors();
+
+	long getMeanMicros();
+
+	long getP50Micros();
+
+	long getP95Micros();
+
+	long getP99Micros();
+
+	long getMaxMicros();
+
+	void reset();
+}
@@ -0,0 +1,227 @@
+package databasePart1;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SchemaMigrator class brings the database schema up to date by applying
+ * the {@link #MIGRATIONS} that are not yet recorded in the
+ * {@code schema_version} table, in version order. Applied migrations are
+ * checked against their stored checksum so an edited migration is caught
+ * instead of silently diverging.
+ *
+ * When the schema is already current, startup costs a single SELECT; a
+ * database that has been migrated once in this JVM is not checked again.
+ */
+public final class SchemaMigrator {
+
+	/**
+	 * Every schema change, oldest first. Never edit an entry that has shipped;
+	 * append a new one.
+	 */
+	static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+			// The tables createTables() used to (re)create on every connect. IF NOT EXISTS keeps
+			// this safe on databases that were created before migrations existed.
+			new Migration(1, "baseline schema",
+					"CREATE TABLE IF NOT EXISTS cse360users (id INT AUTO_INCREMENT PRIMARY KEY, "
+							+ "userName VARCHAR(255) UNIQUE, password VARCHAR(255), role VARCHAR(20), "
+							+ "OTP VARCHAR(10), isUSED BOOLEAN DEFAULT TRUE)",
+					"ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS OTP VARCHAR(10)",
+					"ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS isUSED BOOLEAN DEFAULT TRUE",
+					"CREATE TABLE IF NOT EXISTS InvitationCodes (code VARCHAR(10) PRIMARY KEY, "
+							+ "isUsed BOOLEAN DEFAULT FALSE, startTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+							+ "expires TIMESTAMP)",
+					"ALTER TABLE InvitationCodes ADD COLUMN IF NOT EXISTS startTime TIMESTAMP DEFAULT CURRENT_TIMESTAMP",
+					"ALTER TABLE InvitationCodes ADD COLUMN IF NOT EXISTS expires TIMESTAMP",
+					"CREATE TABLE IF NOT EXISTS Answers (id INT AUTO_INCREMENT PRIMARY KEY, questionId INT, "
+							+ "content VARCHAR(255) NOT NULL)",
+					"CREATE TABLE IF NOT EXISTS Questions (id INT AUTO_INCREMENT PRIMARY KEY, "
+							+ "content VARCHAR(255) NOT NULL)"),
+			// validateOTP looks users up by OTP
+			new Migration(2, "index cse360users.OTP",
+					"CREATE INDEX IF NOT EXISTS idx_cse360users_otp ON cse360users (OTP)"),
+			// H2's native full-text index, kept current by triggers, for the DATABASE search backend
+			// (dropped again by migration 6; syncFullTextIndex now decides whether it exists)
+			new Migration(3, "full-text index on Questions and Answers content",
+					"CREATE ALIAS IF NOT EXISTS FT_INIT FOR 'org.h2.fulltext.FullText.init'",
+					"CALL FT_INIT()",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'QUESTIONS', 'CONTENT')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'ANSWERS', 'CONTENT')"),
+			// Answers are read per question; id is included so they come back already sorted
+			new Migration(4, "index Answers.questionId",
+					"CREATE INDEX IF NOT EXISTS idx_answers_question ON Answers (questionId, id)"),
+			// Change tracking for refresh(): every insert and update takes the next value of one
+			// sequence, and deletes leave a row in deleted_rows, so changes can be read by version
+			new Migration(5, "row versions and tombstones for Questions and Answers",
+					"CREATE SEQUENCE IF NOT EXISTS change_seq",
+					"ALTER TABLE Questions ADD COLUMN IF NOT EXISTS row_version BIGINT DEFAULT NEXT VALUE FOR change_seq NOT NULL",
+					"ALTER TABLE Questions ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP",
+					"CREATE INDEX IF NOT EXISTS idx_questions_version ON Questions (row_version)",
+					"ALTER TABLE Answers ADD COLUMN IF NOT EXISTS row_version BIGINT DEFAULT NEXT VALUE FOR change_seq NOT NULL",
+					"ALTER TABLE Answers ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP",
+					"CREATE INDEX IF NOT EXISTS idx_answers_version ON Answers (row_version)",
+					"CREATE TABLE IF NOT EXISTS deleted_rows (table_name VARCHAR(32) NOT NULL, id INT NOT NULL, "
+							+ "row_version BIGINT DEFAULT NEXT VALUE FOR change_seq NOT NULL, deleted_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+					"CREATE INDEX IF NOT EXISTS idx_deleted_rows_version ON deleted_rows (table_name, row_version)",
+					// ALTER TABLE leaves H2's full-text triggers with a stale index id; recreate them
+					"CALL FT_DROP_INDEX('PUBLIC', 'QUESTIONS')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'QUESTIONS', 'CONTENT')",
+					"CALL FT_DROP_INDEX('PUBLIC', 'ANSWERS')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'ANSWERS', 'CONTENT')"),
+			// Migrations 3 and 5 gave every database the full-text index, whose triggers slow down
+			// each insert and update several times over. Drop it; syncFullTextIndex recreates it on
+			// connect only when the DATABASE search backend is configured
+			new Migration(6, "drop the full-text index unless the DATABASE search backend is used",
+					"CALL FT_DROP_INDEX('PUBLIC', 'QUESTIONS')",
+					"CALL FT_DROP_INDEX('PUBLIC', 'ANSWERS')"),
+			// One row that writers lock just before they commit and re-stamp their row versions, so
+			// versions follow commit order and refresh() cannot step past a write still open
+			new Migration(7, "change clock for commit-ordered row versions",
+					"CREATE TABLE IF NOT EXISTS change_clock (id INT PRIMARY KEY, ticks BIGINT NOT NULL)",
+					"MERGE INTO change_clock KEY (id) VALUES (1, 0)")));
+
+	// The tables the DATABASE search backend needs a full-text index on
+	private static final String[] FULL_TEXT_TABLES = { "QUESTIONS", "ANSWERS" };
+	private static final String COUNT_FULL_TEXT_INDEXES = "SELECT COUNT(*) FROM FT.INDEXES WHERE SCHEMA = 'PUBLIC' AND \"TABLE\" = ?";
+
+	private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version ("
+			+ "version INT PRIMARY KEY, description VARCHAR(255), checksum BIGINT NOT NULL, "
+			+ "installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+	private static final String SELECT_VERSIONS = "SELECT version, checksum FROM schema_version";
+	private static final String INSERT_VERSION = "INSERT INTO schema_version (version, description, checksum) VALUES (?, ?, ?)";
+
+	// Database URLs already migrated by this JVM
+	private static final Set<String> migrated = ConcurrentHashMap.newKeySet();
+
+	private SchemaMigrator() {
+	}
+
+	/**
+	 * Applies any pending migrations.
+	 *
+	 * @param connection a connection to the database.
+	 * @param url        the database URL, used to skip databases already migrated by this JVM.
+	 * @return the number of migrations applied.
+	 * @throws SQLException if a migration fails or an applied migration's checksum changed.
+	 */
+	public static int migrate(Connection connection, String url) throws SQLException {
+		if (migrated.contains(url)) {
+			return 0;
+		}
+		synchronized (SchemaMigrator.class) {
+			if (migrated.contains(url)) {
+				return 0;
+			}
+			int applied = migrate(connection);
+			migrated.add(url);
+			return applied;
+		}
+	}
+
+	private static int migrate(Connection connection) throws SQLException {
+		Map<Integer, Long> installed = readInstalled(connection);
+		int applied = 0;
+		for (Migration migration : MIGRATIONS) {
+			Long checksum = installed.get(migration.getVersion());
+			if (checksum == null) {
+				apply(connection, migration);
+				applied++;
+			} else if (checksum != migration.getChecksum()) {
+				throw new SQLException("Schema migration " + migration + " was changed after it was applied "
+						+ "(checksum " + checksum + " in the database, " + migration.getChecksum() + " in code).");
+			}
+		}
+		return applied;
+	}
+
+	// Reads the applied versions, creating schema_version on a fresh database.
+	private static Map<Integer, Long> readInstalled(Connection connection) throws SQLException {
+		Map<Integer, Long> installed = new HashMap<>();
+		try (Statement statement = connection.createStatement()) {
+			try (ResultSet rs = statement.executeQuery(SELECT_VERSIONS)) {
+				while (rs.next()) {
+					installed.put(rs.getInt(1), rs.getLong(2));
+				}
+			} catch (SQLException e) {
+				// First run against this database
+				statement.execute(CREATE_VERSION_TABLE);
+			}
+		}
+		return installed;
+	}
+
+	private static void apply(Connection connection, Migration migration) throws SQLException {
+		System.out.println("Applying schema migration " + migration);
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try (Statement statement = connection.createStatement();
+				PreparedStatement record = connection.prepareStatement(INSERT_VERSION)) {
+			for (String sql : migration.getStatements()) {
+				statement.execute(sql);
+			}
+			record.setInt(1, migration.getVersion());
+			record.setString(2, migration.getDescription());
+			record.setLong(3, migration.getChecksum());
+			record.executeUpdate();
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw new SQLException("Schema migration " + migration + " failed: " + e.getMessage(), e);
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * Creates H2's full-text index on Questions and Answers content if the
+	 * DATABASE search backend is configured, and drops it otherwise. The index
+	 * is kept current by triggers that make every insert and update several
+	 * times slower, so a database searched locally must not carry it. This is
+	 * not a migration because it follows the configuration, which can change
+	 * between runs; it costs one query per table when nothing changes.
+	 *
+	 * @param connection a connection to a migrated database.
+	 * @param backend    the configured search backend.
+	 * @param rebuild    recreate an existing index, e.g. after migrations altered the
+	 *                   tables (ALTER TABLE leaves the triggers with a stale index id).
+	 * @throws SQLException if the index cannot be created or dropped.
+	 */
+	public static void syncFullTextIndex(Connection connection, SearchBackend backend, boolean rebuild)
+			throws SQLException {
+		boolean wanted = backend == SearchBackend.DATABASE;
+		try (PreparedStatement count = connection.prepareStatement(COUNT_FULL_TEXT_INDEXES);
+				Statement statement = connection.createStatement()) {
+			for (String table : FULL_TEXT_TABLES) {
+				count.setString(1, table);
+				boolean exists;
+				try (ResultSet rs = count.executeQuery()) {
+					exists = rs.next() && rs.getInt(1) > 0;
+				}
+				if (exists && (!wanted || rebuild)) {
+					System.out.println("Dropping full-text index on " + table);
+					statement.execute("CALL FT_DROP_INDEX('PUBLIC', '" + table + "')");
+					exists = false;
+				}
+				if (wanted && !exists) {
+					System.out.println("Creating full-text index on " + table);
+					statement.execute("CALL FT_CREATE_INDEX('PUBLIC', '" + table + "', 'CONTENT')");
+				}
+			}
+		}
+	}
+
+	// The newest schema version this code knows about.
+	public static int latestVersion() {
+		return MIGRATIONS.get(MIGRATIONS.size() - 1).getVersion();
+	}
+}
@@ -0,0 +1,25 @@
+package databasePart1;
+
+import java.util.Locale;
+
+/**
+ * The SearchBackend enum lists where keyword searches over questions and
+ * answers can run.
+ */
+public enum SearchBackend {
+
+	// The word index over the collection loaded into this client
+	LOCAL,
+
+	// H2's full-text index; only the matching rows leave the database
+	DATABASE;
+
+	// Parses a backend name case-insensitively, e.g. "database".
+	public static SearchBackend parse(String value) {
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown search backend: " + value + " (expected local or database)");
+		}
+	}
+}
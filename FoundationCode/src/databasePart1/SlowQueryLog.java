@@ -0,0 +1,210 @@
+package databasePart1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SlowQueryLog class records statements that take longer than a
+ * threshold: the SQL, its bound parameters (with passwords and OTPs
+ * redacted), the duration and H2's query plan. The plan is captured on the
+ * calling connection right after the slow execution; formatting and file
+ * writes happen on a background thread that appends to a size-limited
+ * rolling file ({@code slow-queries.log}, {@code slow-queries.log.1}, ...).
+ *
+ * The plan comes from plain {@code EXPLAIN}, which only plans the statement,
+ * so recording costs the caller next to nothing beyond the slow query itself.
+ * Setting {@code cse360.slowlog.explainAnalyze=true} switches SELECTs to
+ * {@code EXPLAIN ANALYZE} for row counts; that runs the query a second time on
+ * the same thread and connection, so it is meant for profiling sessions only.
+ */
+public final class SlowQueryLog {
+
+	private static final String REDACTED = "<redacted>";
+
+	private static volatile long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(250);
+	private static volatile boolean explainAnalyze = false;
+	private static Path file = Paths.get("slow-queries.log");
+	private static long maxFileBytes = 5L * 1024 * 1024;
+	private static int maxBackups = 3;
+
+	private static final BlockingQueue<String> pending = new ArrayBlockingQueue<>(1024);
+	private static final LongAdder logged = new LongAdder();
+	private static final LongAdder dropped = new LongAdder();
+	private static Thread writer;
+
+	private SlowQueryLog() {
+	}
+
+	/**
+	 * Applies the cse360.slowlog.* settings from the database configuration.
+	 *
+	 * @param config the loaded configuration.
+	 */
+	public static synchronized void configure(DatabaseConfig config) {
+		thresholdNanos = config.getSlowQueryThresholdMillis() <= 0 ? Long.MAX_VALUE
+				: TimeUnit.MILLISECONDS.toNanos(config.getSlowQueryThresholdMillis());
+		explainAnalyze = config.isSlowQueryExplainAnalyze();
+		file = Paths.get(config.getSlowQueryFile());
+		maxFileBytes = config.getSlowQueryMaxFileBytes();
+		maxBackups = config.getSlowQueryMaxBackups();
+	}
+
+	// True when slow queries are being captured at all.
+	public static boolean isEnabled() {
+		return thresholdNanos != Long.MAX_VALUE;
+	}
+
+	static boolean isSlow(long nanos) {
+		return nanos >= thresholdNanos;
+	}
+
+	/**
+	 * Captures a slow execution. Called on the thread that ran the statement,
+	 * while it still holds the connection.
+	 *
+	 * @param connection the physical connection the statement ran on.
+	 * @param sql        the statement text.
+	 * @param params     the bound parameters (index 0 is parameter 1), may be null.
+	 * @param nanos      how long the execution took.
+	 */
+	static void record(Connection connection, String sql, Object[] params, long nanos) {
+		NamedQuery query = NamedQuery.forSql(sql);
+		StringBuilder entry = new StringBuilder(256);
+		entry.append(LocalDateTime.now()).append(" duration=").append(TimeUnit.NANOSECONDS.toMillis(nanos))
+				.append("ms query=").append(query == null ? QueryMetrics.OTHER : query.name())
+				.append(System.lineSeparator());
+		entry.append("  sql: ").append(sql).append(System.lineSeparator());
+		entry.append("  params: ").append(formatParams(query, sql, params)).append(System.lineSeparator());
+		entry.append("  plan: ").append(explain(connection, sql, params)).append(System.lineSeparator());
+
+		if (pending.offer(entry.toString())) {
+			ensureWriter();
+		} else {
+			dropped.increment();
+		}
+	}
+
+	private static String formatParams(NamedQuery query, String sql, Object[] params) {
+		if (params == null) {
+			return "[]";
+		}
+		// Unknown SQL that touches credentials gets every parameter hidden
+		boolean redactAll = query == null && mentionsSecret(sql);
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < params.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			boolean secret = redactAll || (query != null && query.isSensitiveParameter(i + 1));
+			if (secret) {
+				sb.append(REDACTED);
+			} else if (params[i] instanceof Object[] array) {
+				// Array parameters, e.g. the ids bound to "= ANY(?)"
+				sb.append(Arrays.toString(array));
+			} else {
+				sb.append(params[i]);
+			}
+		}
+		return sb.append(']').toString();
+	}
+
+	private static boolean mentionsSecret(String sql) {
+		String lower = sql.toLowerCase(Locale.ROOT);
+		return lower.contains("password") || lower.contains("otp");
+	}
+
+	private static String explain(Connection connection, String sql, Object[] params) {
+		boolean select = sql.trim().regionMatches(true, 0, "SELECT", 0, 6);
+		String explainSql = (select && explainAnalyze ? "EXPLAIN ANALYZE " : "EXPLAIN ") + sql;
+		try (PreparedStatement explain = connection.prepareStatement(explainSql)) {
+			if (params != null) {
+				for (int i = 0; i < params.length; i++) {
+					explain.setObject(i + 1, params[i]);
+				}
+			}
+			try (ResultSet rs = explain.executeQuery()) {
+				StringBuilder plan = new StringBuilder();
+				while (rs.next()) {
+					plan.append(rs.getString(1).replace("\n", System.lineSeparator() + "    "));
+				}
+				return plan.toString();
+			}
+		} catch (SQLException e) {
+			return "(plan unavailable: " + e.getMessage() + ")";
+		}
+	}
+
+	private static synchronized void ensureWriter() {
+		if (writer != null) {
+			return;
+		}
+		writer = new Thread(SlowQueryLog::drain, "cse360-slow-query-log");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	private static void drain() {
+		while (true) {
+			try {
+				String entry = pending.take();
+				write(entry);
+				logged.increment();
+			} catch (InterruptedException e) {
+				return;
+			} catch (IOException e) {
+				System.err.println("Could not write slow query log: " + e.getMessage());
+			}
+		}
+	}
+
+	private static synchronized void write(String entry) throws IOException {
+		if (Files.exists(file) && Files.size(file) + entry.length() > maxFileBytes) {
+			roll();
+		}
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND)) {
+			out.write(entry);
+		}
+	}
+
+	// slow-queries.log -> .1 -> .2 ..., dropping the oldest
+	private static void roll() throws IOException {
+		for (int i = maxBackups - 1; i >= 1; i--) {
+			Path from = Paths.get(file + "." + i);
+			if (Files.exists(from)) {
+				Files.move(from, Paths.get(file + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		if (maxBackups > 0) {
+			Files.move(file, Paths.get(file + ".1"), StandardCopyOption.REPLACE_EXISTING);
+		} else {
+			Files.delete(file);
+		}
+	}
+
+	public static long getLoggedCount() {
+		return logged.sum();
+	}
+
+	// Entries discarded because the writer fell more than 1024 entries behind.
+	public static long getDroppedCount() {
+		return dropped.sum();
+	}
+}
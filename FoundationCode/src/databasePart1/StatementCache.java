@@ -0,0 +1,274 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The StatementCache class keeps the prepared statements of one physical
+ * connection so the same SQL is parsed and planned only once. Statements are
+ * kept in least-recently-used order and keyed by SQL text plus whether
+ * generated keys were requested.
+ *
+ * A cached statement is handed out wrapped in a proxy; closing the proxy
+ * clears its parameters, puts back any fetch size, row limit or timeout the
+ * borrower set, and returns it to the cache. A connection is only
+ * used by one thread at a time, so the cache itself is not synchronized.
+ */
+class StatementCache {
+
+	private record Key(String sql, boolean generatedKeys) {
+	}
+
+	private final Connection raw;
+	private final int capacity;
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final LinkedHashMap<Key, Entry> entries;
+
+	StatementCache(Connection raw, int capacity, LongAdder hits, LongAdder misses) {
+		this.raw = raw;
+		this.capacity = capacity;
+		this.hits = hits;
+		this.misses = misses;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns a prepared statement for the given SQL, reusing a cached one when
+	 * it is not already in use.
+	 *
+	 * @param sql           the SQL text.
+	 * @param generatedKeys whether the statement should return generated keys.
+	 * @param owner         the connection handle the statement should report.
+	 * @return a statement proxy that must be closed by the caller.
+	 * @throws SQLException if the statement cannot be prepared.
+	 */
+	PreparedStatement prepare(String sql, boolean generatedKeys, Connection owner) throws SQLException {
+		Key key = new Key(sql, generatedKeys);
+		Entry entry = entries.get(key);
+		if (entry != null && !entry.inUse) {
+			hits.increment();
+		} else {
+			misses.increment();
+			PreparedStatement statement = generatedKeys
+					? raw.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+					: raw.prepareStatement(sql);
+			if (entry != null || capacity == 0) {
+				// Same SQL is already open on this connection (nested use), don't cache the second copy
+				return wrap(new Entry(sql, statement, false, QueryMetrics.forSql(sql)), owner);
+			}
+			entry = new Entry(sql, statement, true, QueryMetrics.forSql(sql));
+			entries.put(key, entry);
+			evictOverflow();
+		}
+		return wrap(entry, owner);
+	}
+
+	private void evictOverflow() {
+		Iterator<Entry> it = entries.values().iterator();
+		while (entries.size() > capacity && it.hasNext()) {
+			Entry eldest = it.next();
+			it.remove();
+			eldest.cached = false;
+			if (!eldest.inUse) {
+				closeQuietly(eldest.statement);
+			}
+		}
+	}
+
+	private PreparedStatement wrap(Entry entry, Connection owner) {
+		entry.inUse = true;
+		return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+				new Class<?>[] { PreparedStatement.class }, new Handle(entry, owner, raw));
+	}
+
+	// Called when the physical connection is closed.
+	void closeAll() {
+		for (Entry entry : entries.values()) {
+			closeQuietly(entry.statement);
+		}
+		entries.clear();
+	}
+
+	private static void closeQuietly(Statement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static final class Entry {
+		private final String sql;
+		private final PreparedStatement statement;
+		private final QueryStats stats;
+		private boolean cached;
+		private boolean inUse;
+		// Whether a statement-wide setting (fetch size, max rows, timeout, ...) was changed since it was borrowed
+		private boolean settingsChanged;
+
+		// Bound parameters, only tracked while the slow query log is enabled
+		private Object[] params;
+		private int paramCount;
+
+		Entry(String sql, PreparedStatement statement, boolean cached, QueryStats stats) {
+			this.sql = sql;
+			this.statement = statement;
+			this.cached = cached;
+			this.stats = stats;
+		}
+
+		void bind(int index, Object value) {
+			if (params == null || params.length < index) {
+				Object[] grown = new Object[Math.max(index, 4)];
+				if (params != null) {
+					System.arraycopy(params, 0, grown, 0, params.length);
+				}
+				params = grown;
+			}
+			params[index - 1] = value;
+			paramCount = Math.max(paramCount, index);
+		}
+
+		Object[] boundParams() {
+			if (params == null) {
+				return null;
+			}
+			Object[] bound = new Object[paramCount];
+			System.arraycopy(params, 0, bound, 0, paramCount);
+			return bound;
+		}
+	}
+
+	/**
+	 * Forwards calls to the real statement and turns close() into a return to the
+	 * cache. Execute calls are timed into the statement's {@link QueryStats} and
+	 * handed to the {@link SlowQueryLog} when they cross its threshold.
+	 */
+	private static final class Handle implements InvocationHandler {
+		private Entry entry;
+		private final Connection owner;
+		private final Connection raw;
+		// Result sets handed out through this handle, closed when the handle is closed
+		private List<ResultSet> openResults;
+
+		Handle(Entry entry, Connection owner, Connection raw) {
+			this.entry = entry;
+			this.owner = owner;
+			this.raw = raw;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				release();
+				return null;
+			case "isClosed":
+				return entry == null;
+			case "getConnection":
+				return owner;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "CachedStatement[" + (entry == null ? "closed" : entry.statement) + "]";
+			default:
+				if (entry == null) {
+					throw new SQLException("Statement is closed.");
+				}
+				String name = method.getName();
+				if (args != null && args.length == 1 && name.startsWith("set")) {
+					entry.settingsChanged = true;
+				}
+				if (SlowQueryLog.isEnabled()) {
+					trackParameter(name, args);
+				}
+				Object result;
+				boolean timed = name.startsWith("execute");
+				long start = timed ? System.nanoTime() : 0;
+				try {
+					result = method.invoke(entry.statement, args);
+				} catch (InvocationTargetException e) {
+					if (timed) {
+						entry.stats.record(System.nanoTime() - start, true);
+					}
+					throw e.getCause();
+				}
+				if (timed) {
+					long nanos = System.nanoTime() - start;
+					entry.stats.record(nanos, false);
+					if (SlowQueryLog.isSlow(nanos)) {
+						SlowQueryLog.record(raw, entry.sql, entry.boundParams(), nanos);
+					}
+				}
+				if (result instanceof ResultSet) {
+					if (openResults == null) {
+						openResults = new ArrayList<>(2);
+					}
+					openResults.add((ResultSet) result);
+				}
+				return result;
+			}
+		}
+
+		// Remembers setXxx(index, value) calls so a slow execution can be logged with its parameters.
+		private void trackParameter(String name, Object[] args) {
+			if (name.equals("clearParameters")) {
+				entry.params = null;
+				entry.paramCount = 0;
+			} else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+				entry.bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+			}
+		}
+
+		private void release() throws SQLException {
+			if (entry == null) {
+				return;
+			}
+			Entry returning = entry;
+			entry = null;
+			if (openResults != null) {
+				for (ResultSet rs : openResults) {
+					rs.close();
+				}
+				openResults = null;
+			}
+			returning.inUse = false;
+			returning.params = null;
+			returning.paramCount = 0;
+			if (returning.cached) {
+				returning.statement.clearParameters();
+				returning.statement.clearBatch();
+				if (returning.settingsChanged) {
+					resetSettings(returning.statement);
+					returning.settingsChanged = false;
+				}
+			} else {
+				returning.statement.close();
+			}
+		}
+
+		// Puts the JDBC defaults back so the next borrower does not inherit this one's settings
+		private static void resetSettings(PreparedStatement statement) throws SQLException {
+			statement.setFetchSize(0);
+			statement.setMaxRows(0);
+			statement.setQueryTimeout(0);
+			statement.setMaxFieldSize(0);
+			statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package databasePart1;
+
+import java.util.Locale;
+
+/**
+ * The StorageMode enum lists the ways the H2 database can be stored.
+ */
+public enum StorageMode {
+
+	// Persistent database file with H2's default settings
+	FILE,
+
+	// Pure in-memory database, kept alive until the JVM exits; for tests and benchmarks
+	MEMORY,
+
+	// Persistent database file with the cache, write delay, page size and LOB settings applied
+	TUNED;
+
+	// Parses a mode name case-insensitively, e.g. "memory".
+	public static StorageMode parse(String value) {
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown storage mode: " + value + " (expected file, memory or tuned)");
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package databasePart1;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Transaction class is the state of one unit of work started by
+ * {@link DatabaseHelper#inTransaction}: the pooled connection every helper
+ * call on this thread shares, and the first error a helper method swallowed
+ * while it was running. Such an error makes the transaction roll back instead
+ * of committing half of the work.
+ */
+class Transaction {
+
+	private final Connection connection;
+	private final Connection view;
+	private SQLException failure;
+	// Run once the transaction has committed; dropped if it rolls back
+	private final List<Runnable> afterCommit = new ArrayList<>();
+	// Ids to re-stamp with a commit-ordered row_version, by STAMP_ query
+	private final Map<NamedQuery, List<Integer>> versionStamps = new LinkedHashMap<>();
+
+	Transaction(Connection connection) {
+		this.connection = connection;
+		// Helper methods close what getConnection() gives them; that must not end the transaction
+		this.view = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "close":
+						return null;
+					case "isClosed":
+						return connection.isClosed();
+					case "commit":
+					case "rollback":
+					case "setAutoCommit":
+						throw new SQLException(method.getName() + "() is not allowed inside inTransaction().");
+					default:
+						try {
+							return method.invoke(connection, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				});
+	}
+
+	// The physical (pooled) connection, used to commit or roll back.
+	Connection connection() {
+		return connection;
+	}
+
+	// What getConnection() hands out while this transaction is active.
+	Connection view() {
+		return view;
+	}
+
+	void markFailed(SQLException e) {
+		if (failure == null) {
+			failure = e;
+		}
+	}
+
+	SQLException failure() {
+		return failure;
+	}
+
+	void stampAtCommit(NamedQuery stamp, int id) {
+		versionStamps.computeIfAbsent(stamp, q -> new ArrayList<>()).add(id);
+	}
+
+	Map<NamedQuery, List<Integer>> versionStamps() {
+		return versionStamps;
+	}
+
+	void afterCommit(Runnable action) {
+		afterCommit.add(action);
+	}
+
+	void runAfterCommit() {
+		for (Runnable action : afterCommit) {
+			action.run();
+		}
+	}
+}